@@ -0,0 +1,49 @@
+package com.top50.archive;
+
+/**
+ * Layout of a per-user chart archive. All numbers are big-endian.
+ *
+ * <pre>
+ * header         64 bytes: magic, version, counts and section offsets (see constants below)
+ * weeks          weekCount x 12: iso string, first entry, entry count (ascending by week)
+ * entries        entryCount x 8: track, position (u16), previous position (u16, 0 = new)
+ * tracks         trackCount x 28: id, title, image url (-1 = none), first artist, artist count,
+ *                first history point, history point count (in order of first appearance)
+ * track order    trackCount x 4: track numbers sorted by Spotify id, for binary search
+ * artists        artistCount x 4: string numbers, referenced from tracks
+ * history        historyCount x 4: week (u16), position (u16), grouped by track
+ * string offsets (stringCount + 1) x 4: start of each string in the string data
+ * string data    UTF-8 bytes of all distinct strings
+ * </pre>
+ */
+final class ChartArchiveFormat {
+    static final int MAGIC = 0x54353043; // "T50C"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int WEEK_COUNT = 8;
+    static final int TRACK_COUNT = 12;
+    static final int ENTRY_COUNT = 16;
+    static final int STRING_COUNT = 20;
+    static final int HISTORY_COUNT = 24;
+    static final int ARTIST_COUNT = 28;
+    static final int WEEKS_OFFSET = 32;
+    static final int ENTRIES_OFFSET = 36;
+    static final int TRACKS_OFFSET = 40;
+    static final int TRACK_ORDER_OFFSET = 44;
+    static final int ARTISTS_OFFSET = 48;
+    static final int HISTORY_OFFSET = 52;
+    static final int STRING_OFFSETS_OFFSET = 56;
+    static final int STRING_DATA_OFFSET = 60;
+
+    static final int WEEK_SIZE = 12;
+    static final int ENTRY_SIZE = 8;
+    static final int TRACK_SIZE = 28;
+    static final int HISTORY_SIZE = 4;
+
+    static final int NO_STRING = -1;
+    static final int MAX_U16 = 0xFFFF;
+
+    private ChartArchiveFormat() {
+    }
+}
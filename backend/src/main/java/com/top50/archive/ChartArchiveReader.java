@@ -0,0 +1,203 @@
+package com.top50.archive;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.top50.archive.ChartArchiveFormat.*;
+
+/**
+ * Read-only view of a chart archive, memory-mapped so a lookup only touches the pages it needs.
+ *
+ * Only absolute reads are used on the shared buffer, so a reader can be used from several threads.
+ */
+public class ChartArchiveReader {
+    private final ByteBuffer buffer;
+    private final int weekCount;
+    private final int trackCount;
+    private final int weeksOffset;
+    private final int entriesOffset;
+    private final int tracksOffset;
+    private final int trackOrderOffset;
+    private final int artistsOffset;
+    private final int historyOffset;
+    private final int stringOffsetsOffset;
+    private final int stringDataOffset;
+
+    private ChartArchiveReader(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a chart archive");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported chart archive version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.weekCount = buffer.getInt(WEEK_COUNT);
+        this.trackCount = buffer.getInt(TRACK_COUNT);
+        this.weeksOffset = buffer.getInt(WEEKS_OFFSET);
+        this.entriesOffset = buffer.getInt(ENTRIES_OFFSET);
+        this.tracksOffset = buffer.getInt(TRACKS_OFFSET);
+        this.trackOrderOffset = buffer.getInt(TRACK_ORDER_OFFSET);
+        this.artistsOffset = buffer.getInt(ARTISTS_OFFSET);
+        this.historyOffset = buffer.getInt(HISTORY_OFFSET);
+        this.stringOffsetsOffset = buffer.getInt(STRING_OFFSETS_OFFSET);
+        this.stringDataOffset = buffer.getInt(STRING_DATA_OFFSET);
+    }
+
+    public static ChartArchiveReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ChartArchiveReader(mapped);
+        }
+    }
+
+    /**
+     * All weeks in ascending order
+     */
+    public List<String> getAllWeeks() {
+        List<String> weeks = new ArrayList<>(weekCount);
+        for (int i = 0; i < weekCount; i++) {
+            weeks.add(weekName(i));
+        }
+        return weeks;
+    }
+
+    /**
+     * Index of a week, or -1 if the archive has no chart for it
+     */
+    public int weekIndex(String week) {
+        int low = 0;
+        int high = weekCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = weekName(mid).compareTo(week);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String weekName(int weekIndex) {
+        return string(buffer.getInt(weeksOffset + weekIndex * WEEK_SIZE));
+    }
+
+    public List<ChartEntryDto> getChart(int weekIndex) {
+        String week = weekName(weekIndex);
+        int base = weeksOffset + weekIndex * WEEK_SIZE;
+        int first = buffer.getInt(base + 4);
+        int count = buffer.getInt(base + 8);
+
+        List<ChartEntryDto> chart = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int entry = entriesOffset + i * ENTRY_SIZE;
+            int previousPosition = Short.toUnsignedInt(buffer.getShort(entry + 6));
+            chart.add(new ChartEntryDto(
+                    week,
+                    Short.toUnsignedInt(buffer.getShort(entry + 4)),
+                    getTrack(buffer.getInt(entry)),
+                    previousPosition != 0 ? previousPosition : null
+            ));
+        }
+        return chart;
+    }
+
+    /**
+     * Track numbers charted in a week, in chart order
+     */
+    public int[] getChartTracks(int weekIndex) {
+        int base = weeksOffset + weekIndex * WEEK_SIZE;
+        int first = buffer.getInt(base + 4);
+        int[] tracks = new int[buffer.getInt(base + 8)];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = buffer.getInt(entriesOffset + (first + i) * ENTRY_SIZE);
+        }
+        return tracks;
+    }
+
+    /**
+     * Track number for a Spotify id, or -1 if the track never charted
+     */
+    public int findTrack(String spotifyId) {
+        int low = 0;
+        int high = trackCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int track = buffer.getInt(trackOrderOffset + mid * 4);
+            int cmp = string(buffer.getInt(tracksOffset + track * TRACK_SIZE)).compareTo(spotifyId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return track;
+            }
+        }
+        return -1;
+    }
+
+    public TrackDto getTrack(int track) {
+        int base = tracksOffset + track * TRACK_SIZE;
+        int artistStart = buffer.getInt(base + 12);
+        int artistCount = buffer.getInt(base + 16);
+        List<String> artists = new ArrayList<>(artistCount);
+        for (int i = 0; i < artistCount; i++) {
+            artists.add(string(buffer.getInt(artistsOffset + (artistStart + i) * 4)));
+        }
+        return new TrackDto(
+                string(buffer.getInt(base)),
+                string(buffer.getInt(base + 4)),
+                artists,
+                string(buffer.getInt(base + 8))
+        );
+    }
+
+    /**
+     * All tracks in order of first appearance
+     */
+    public List<TrackDto> getAllTracks() {
+        List<TrackDto> tracks = new ArrayList<>(trackCount);
+        for (int i = 0; i < trackCount; i++) {
+            tracks.add(getTrack(i));
+        }
+        return tracks;
+    }
+
+    public TrackHistoryDto getTrackHistory(int track) {
+        int base = tracksOffset + track * TRACK_SIZE;
+        int first = buffer.getInt(base + 20);
+        int count = buffer.getInt(base + 24);
+
+        List<TrackHistoryDto.PositionPoint> history = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int point = buffer.getInt(historyOffset + i * HISTORY_SIZE);
+            history.add(new TrackHistoryDto.PositionPoint(weekName(point >>> 16), point & MAX_U16));
+        }
+        return new TrackHistoryDto(getTrack(track), history);
+    }
+
+    private String string(int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsetsOffset + index * 4);
+        int end = buffer.getInt(stringOffsetsOffset + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
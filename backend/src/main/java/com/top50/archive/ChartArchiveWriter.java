@@ -0,0 +1,208 @@
+package com.top50.archive;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.top50.archive.ChartArchiveFormat.*;
+
+/**
+ * Writes a user's charts to a chart archive, see {@link ChartArchiveFormat}.
+ *
+ * Weeks must be given in ascending order. Tracks keep the data of their first appearance, like
+ * the JSON reader does. The file is written next to the target and moved into place, so readers
+ * never see a partial archive.
+ */
+public class ChartArchiveWriter {
+    private final List<String> weeks = new ArrayList<>();
+    private final List<int[]> weekRanges = new ArrayList<>();
+    private final List<int[]> entries = new ArrayList<>();
+    private final Map<String, TrackRecord> tracks = new LinkedHashMap<>();
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    /**
+     * Add one week's chart, entries sorted by position
+     */
+    public void addWeek(String week, List<ChartEntryDto> chart) {
+        if (!weeks.isEmpty() && weeks.get(weeks.size() - 1).compareTo(week) >= 0) {
+            throw new IllegalArgumentException("Weeks must be added in ascending order: " + week);
+        }
+        int weekIndex = weeks.size();
+        if (weekIndex > MAX_U16) {
+            throw new IllegalArgumentException("Too many weeks for archive: " + week);
+        }
+        weeks.add(week);
+        weekRanges.add(new int[] {string(week), entries.size(), chart.size()});
+
+        for (ChartEntryDto entry : chart) {
+            TrackRecord track = tracks.computeIfAbsent(entry.getTrack().getId(), id -> newTrack(entry.getTrack()));
+            int position = checkPosition(entry.getPosition());
+            int previousPosition = entry.getPreviousPosition() != null ? checkPosition(entry.getPreviousPosition()) : 0;
+            entries.add(new int[] {track.index, position, previousPosition});
+
+            // Only the first placement of a track in a week counts for its history
+            if (track.lastWeek != weekIndex) {
+                track.lastWeek = weekIndex;
+                track.history.add(weekIndex << 16 | position);
+            }
+        }
+    }
+
+    public void write(Path target) throws IOException {
+        List<TrackRecord> trackList = new ArrayList<>(tracks.values());
+        int artistCount = 0;
+        int historyCount = 0;
+        for (TrackRecord track : trackList) {
+            artistCount += track.artists.length;
+            historyCount += track.history.size();
+        }
+
+        List<byte[]> stringBytes = new ArrayList<>(strings.size());
+        int stringDataSize = 0;
+        for (String s : strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            stringBytes.add(bytes);
+            stringDataSize += bytes.length;
+        }
+
+        int weeksOffset = HEADER_SIZE;
+        int entriesOffset = weeksOffset + weeks.size() * WEEK_SIZE;
+        int tracksOffset = entriesOffset + entries.size() * ENTRY_SIZE;
+        int trackOrderOffset = tracksOffset + trackList.size() * TRACK_SIZE;
+        int artistsOffset = trackOrderOffset + trackList.size() * 4;
+        int historyOffset = artistsOffset + artistCount * 4;
+        int stringOffsetsOffset = historyOffset + historyCount * HISTORY_SIZE;
+        int stringDataOffset = stringOffsetsOffset + (strings.size() + 1) * 4;
+        if ((long) stringDataOffset + stringDataSize > Integer.MAX_VALUE) {
+            throw new IOException("Chart archive too large: " + target);
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(weeks.size());
+            out.writeInt(trackList.size());
+            out.writeInt(entries.size());
+            out.writeInt(strings.size());
+            out.writeInt(historyCount);
+            out.writeInt(artistCount);
+            out.writeInt(weeksOffset);
+            out.writeInt(entriesOffset);
+            out.writeInt(tracksOffset);
+            out.writeInt(trackOrderOffset);
+            out.writeInt(artistsOffset);
+            out.writeInt(historyOffset);
+            out.writeInt(stringOffsetsOffset);
+            out.writeInt(stringDataOffset);
+
+            for (int[] range : weekRanges) {
+                out.writeInt(range[0]);
+                out.writeInt(range[1]);
+                out.writeInt(range[2]);
+            }
+
+            for (int[] entry : entries) {
+                out.writeInt(entry[0]);
+                out.writeShort(entry[1]);
+                out.writeShort(entry[2]);
+            }
+
+            int artistStart = 0;
+            int historyStart = 0;
+            for (TrackRecord track : trackList) {
+                out.writeInt(track.id);
+                out.writeInt(track.title);
+                out.writeInt(track.imageUrl);
+                out.writeInt(artistStart);
+                out.writeInt(track.artists.length);
+                out.writeInt(historyStart);
+                out.writeInt(track.history.size());
+                artistStart += track.artists.length;
+                historyStart += track.history.size();
+            }
+
+            List<TrackRecord> byId = new ArrayList<>(trackList);
+            byId.sort(Comparator.comparing(track -> track.spotifyId));
+            for (TrackRecord track : byId) {
+                out.writeInt(track.index);
+            }
+
+            for (TrackRecord track : trackList) {
+                for (int artist : track.artists) {
+                    out.writeInt(artist);
+                }
+            }
+
+            for (TrackRecord track : trackList) {
+                for (int point : track.history) {
+                    out.writeInt(point);
+                }
+            }
+
+            int offset = 0;
+            for (byte[] bytes : stringBytes) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+
+            for (byte[] bytes : stringBytes) {
+                out.write(bytes);
+            }
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private TrackRecord newTrack(TrackDto dto) {
+        List<String> artistNames = dto.getArtists() != null ? dto.getArtists() : Collections.emptyList();
+        int[] artists = new int[artistNames.size()];
+        for (int i = 0; i < artists.length; i++) {
+            artists[i] = string(Objects.requireNonNullElse(artistNames.get(i), "")); // Null names are stored as empty
+        }
+        return new TrackRecord(tracks.size(), dto.getId(), string(dto.getId()), string(Objects.requireNonNullElse(dto.getTitle(), "")),
+                dto.getImageUrl() != null ? string(dto.getImageUrl()) : NO_STRING, artists);
+    }
+
+    private int string(String s) {
+        return strings.computeIfAbsent(s, key -> strings.size());
+    }
+
+    private static int checkPosition(Integer position) {
+        if (position == null || position < 0 || position > MAX_U16) {
+            throw new IllegalArgumentException("Position out of range for archive: " + position);
+        }
+        return position;
+    }
+
+    private static final class TrackRecord {
+        final int index;
+        final String spotifyId;
+        final int id;
+        final int title;
+        final int imageUrl;
+        final int[] artists;
+        final List<Integer> history = new ArrayList<>();
+        int lastWeek = -1;
+
+        TrackRecord(int index, String spotifyId, int id, int title, int imageUrl, int[] artists) {
+            this.index = index;
+            this.spotifyId = spotifyId;
+            this.id = id;
+            this.title = title;
+            this.imageUrl = imageUrl;
+            this.artists = artists;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.top50.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how many calls to the annotated controller (or controller method) run at the same time,
+ * enforced by {@link BulkheadAspect}. Calls sharing a name share the limit, configured as
+ * bulkhead.&lt;name&gt;.max-concurrent. Work outside controller calls takes permits from
+ * {@link Bulkheads} directly.
+ *
+ * Limits of bulkheads whose calls use the database should add up to at most the connection pool
+ * size, so one kind of traffic cannot take all connections from the others.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+    String value();
+}
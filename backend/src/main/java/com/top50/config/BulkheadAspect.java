@@ -0,0 +1,38 @@
+package com.top50.config;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enforces {@link Bulkhead} limits with the permits of {@link Bulkheads}.
+ *
+ * A call that finds its bulkhead full waits up to bulkhead.max-wait for a permit and is then rejected
+ * with 503. The permit is held until the controller method returns.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class BulkheadAspect {
+    private final Bulkheads bulkheads;
+
+    @Around("@within(com.top50.config.Bulkhead) || @annotation(com.top50.config.Bulkhead)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        try (Bulkheads.Permit permit = bulkheads.acquire(bulkheadName(joinPoint))) {
+            return joinPoint.proceed();
+        }
+    }
+
+    private static String bulkheadName(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(joinPoint.getTarget().getClass(), Bulkhead.class);
+        }
+        return bulkhead.value();
+    }
+}
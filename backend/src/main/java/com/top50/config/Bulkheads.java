@@ -0,0 +1,124 @@
+package com.top50.config;
+
+import com.top50.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The bulkhead limits, one fair semaphore per name, sized by bulkhead.&lt;name&gt;.max-concurrent.
+ *
+ * Controllers take their permits through {@link Bulkhead}; work that outlives the controller call
+ * (streamed exports) or runs on its own threads (cache warming, compaction, the startup import,
+ * index retries) takes them here, so every path holding a database connection counts against a
+ * limit. Concurrent calls and rejections are recorded as bulkhead.active and bulkhead.rejected,
+ * tagged by name.
+ */
+@Component
+@Slf4j
+public class Bulkheads {
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    public Bulkheads(Environment environment,
+                     MeterRegistry meterRegistry,
+                     @Value("${bulkhead.max-wait:2s}") Duration maxWait) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * A permit of the named bulkhead, waiting up to bulkhead.max-wait before rejecting the call
+     * with a {@link BulkheadFullException} (503). An interrupted wait is rejected the same way.
+     */
+    public Permit acquire(String name) {
+        Limit limit = limit(name);
+        boolean acquired;
+        try {
+            acquired = limit.semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            limit.rejected.increment();
+            throw new BulkheadFullException(limit.name, limit.maxConcurrent);
+        }
+        return new Permit(limit.semaphore);
+    }
+
+    /**
+     * A permit of the named bulkhead, waiting as long as it takes. For background work, which has
+     * no caller to answer with a 503.
+     */
+    public Permit acquireWhenFree(String name) throws InterruptedException {
+        Limit limit = limit(name);
+        limit.semaphore.acquire();
+        return new Permit(limit.semaphore);
+    }
+
+    private Limit limit(String name) {
+        return limits.computeIfAbsent(name, this::createLimit);
+    }
+
+    private Limit createLimit(String name) {
+        int maxConcurrent = environment.getProperty("bulkhead." + name + ".max-concurrent", Integer.class,
+                environment.getProperty("bulkhead.default.max-concurrent", Integer.class, 10));
+        log.info("Bulkhead {}: at most {} concurrent calls", name, maxConcurrent);
+        return new Limit(name, maxConcurrent, meterRegistry);
+    }
+
+    /**
+     * Released on close; closing twice releases once
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private static class Limit {
+        final String name;
+        final int maxConcurrent;
+        final Semaphore semaphore;
+        final Counter rejected;
+
+        Limit(String name, int maxConcurrent, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.semaphore = new Semaphore(maxConcurrent, true);
+            this.rejected = Counter.builder("bulkhead.rejected")
+                .description("Calls rejected because their bulkhead was full")
+                .tag("name", name)
+                .register(meterRegistry);
+            Gauge.builder("bulkhead.active", semaphore, s -> maxConcurrent - s.availablePermits())
+                .description("Calls currently running in the bulkhead")
+                .tag("name", name)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.top50.config;
+
+/**
+ * Target pool of a connection when read/write routing is enabled
+ */
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,86 @@
+package com.top50.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read/write split between the primary database and a read replica.
+ *
+ * Only active when spring.datasource.replica.url is set; otherwise Spring Boot's single
+ * datasource is used as before. Read-only transactions go to the replica while it is reachable
+ * and within spring.datasource.replica.max-lag, everything else (imports, deletes, Flyway) goes
+ * to the primary.
+ */
+@Configuration
+@Profile("!files")
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+@Slf4j
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties primaryProperties,
+                                              @Value("${spring.datasource.replica.url}") String url,
+                                              @Value("${spring.datasource.replica.username:}") String username,
+                                              @Value("${spring.datasource.replica.password:}") String password) {
+        // Username and password each default to the primary's
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primaryProperties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? primaryProperties.determineUsername() : username)
+                .password(password.isEmpty() ? primaryProperties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${spring.datasource.replica.lag-query:}") String lagQuery,
+                                               @Value("${spring.datasource.replica.max-lag:5s}") Duration maxLag,
+                                               @Value("${spring.datasource.replica.check-interval:5s}") Duration checkInterval) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag, checkInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(lagMonitor);
+        routing.setTargetDataSources(Map.of(DataSourceRole.PRIMARY, primary, DataSourceRole.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        log.info("Read/write datasource routing enabled (replica: {})", ((HikariDataSource) replica).getJdbcUrl());
+        // Delay fetching a connection until the first statement, when the read-only flag is known
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,22 @@
+package com.top50.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a call to the annotated method may issue, checked by
+ * {@link QueryBudgetAspect}. Budgets are the expected count with a cold second-level cache and must
+ * not depend on the size of the data; a method that needs more statements for a bigger chart has
+ * an N+1 problem.
+ *
+ * Only calls through the Spring proxy are checked, like @Transactional.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+    int value();
+}
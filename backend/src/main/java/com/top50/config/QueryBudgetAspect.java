@@ -0,0 +1,76 @@
+package com.top50.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Enforces {@link QueryBudget} on service methods.
+ *
+ * query.budget.mode is off, warn (log calls over budget) or fail (abort the statement that goes over
+ * budget, rolling back the transaction), meant for development and CI runs. Statement counts of
+ * every budgeted call are recorded as the db.statements distribution.
+ *
+ * Runs inside the method's transaction, so statements of after-commit listeners are not counted:
+ * the aspect has the lowest precedence and the transaction advisor is ordered just before it (see
+ * {@link SqlStatementConfig}).
+ */
+@Aspect
+@Component
+@Profile("!files")
+@Order(QueryBudgetAspect.ORDER)
+@Slf4j
+public class QueryBudgetAspect {
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final Mode mode;
+
+    public QueryBudgetAspect(SqlStatementCounter counter,
+                             MeterRegistry meterRegistry,
+                             @Value("${query.budget.mode:warn}") String mode) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        log.info("Query budgets: {}", this.mode);
+    }
+
+    @Around("@annotation(budget)")
+    public Object enforce(ProceedingJoinPoint joinPoint, QueryBudget budget) throws Throwable {
+        if (mode == Mode.OFF) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        try (SqlStatementCounter.Scope scope = counter.open(method, mode == Mode.FAIL ? budget.value() : -1)) {
+            try {
+                return joinPoint.proceed();
+            } finally {
+                int count = scope.getCount();
+                DistributionSummary.builder("db.statements")
+                    .description("SQL statements per call of a method with a query budget")
+                    .tag("method", method)
+                    .register(meterRegistry)
+                    .record(count);
+                if (count > budget.value()) {
+                    log.warn("{} issued {} SQL statements, budget is {}", method, count, budget.value());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.top50.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ *
+ * The replica is only used while {@link ReplicaLagMonitor} reports it as healthy; otherwise reads
+ * fall back to the primary. Reads that must see a write that just committed (imports, refreshes
+ * after a {@code ChartDataChangedEvent}) run inside {@link #onPrimary(Supplier)}, since the replica
+ * may be up to the allowed lag behind. Must be wrapped in a LazyConnectionDataSourceProxy, since
+ * the transaction manager fetches the connection before the read-only flag is set.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    /**
+     * Run work with every connection it opens taken from the primary, read-only or not. Applies to
+     * connections fetched inside the call, so the transaction should start inside it as well.
+     * Without a replica configured this just runs the work.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable work) {
+        onPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (FORCE_PRIMARY.get() == null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && lagMonitor.isReplicaUsable()) {
+            return DataSourceRole.REPLICA;
+        }
+        return DataSourceRole.PRIMARY;
+    }
+}
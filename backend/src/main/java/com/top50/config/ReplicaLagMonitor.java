@@ -0,0 +1,93 @@
+package com.top50.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks that the replica is reachable and not too far behind the primary.
+ *
+ * The lag query must return the replication delay in seconds as a single number (NULL counts as
+ * not replicating). A reachable replica says nothing about how far behind it is, so without a lag
+ * query the replica is never used and all reads stay on the primary. Checks run on a background
+ * thread, the first one right after construction; until it has passed, reads go to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.maxLag = maxLag;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (this.lagQuery == null) {
+            log.warn("No spring.datasource.replica.lag-query set, read-only transactions stay on the primary");
+            return;
+        }
+        long intervalMillis = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        if (lagQuery == null) {
+            return;
+        }
+        boolean usable;
+        try (Connection connection = replica.getConnection()) {
+            usable = lagWithinLimit(connection);
+        } catch (Exception e) {
+            log.debug("Replica check failed: {}", e.getMessage());
+            usable = false;
+        }
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica is available, routing read-only transactions to it");
+            } else {
+                log.warn("Replica is unavailable or lagging more than {}, routing reads to primary", maxLag);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    private boolean lagWithinLimit(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return false;
+            }
+            double lagSeconds = rs.getDouble(1);
+            if (rs.wasNull()) {
+                return false;
+            }
+            return lagSeconds * 1000 <= maxLag.toMillis();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
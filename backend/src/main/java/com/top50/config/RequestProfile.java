@@ -0,0 +1,92 @@
+package com.top50.config;
+
+import java.util.Locale;
+
+/**
+ * Timings of the request handled by the current thread: JDBC statements and their execution time,
+ * and when the handler returned its body. Started and ended by {@link ServerTimingFilter}.
+ */
+public final class RequestProfile {
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private int sqlStatements;
+    private long sqlNanos;
+    private long statementStart;
+    private long handlerEnd;
+
+    private RequestProfile() {
+    }
+
+    static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * Profile of the current thread's request, or null outside a profiled request
+     */
+    public static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    void end() {
+        CURRENT.remove();
+    }
+
+    void statementStarted() {
+        statementStart = System.nanoTime();
+    }
+
+    void statementFinished() {
+        sqlStatements++;
+        sqlNanos += System.nanoTime() - statementStart;
+    }
+
+    /**
+     * The handler is done and the response body is about to be serialized
+     */
+    void handlerFinished() {
+        if (handlerEnd == 0) {
+            handlerEnd = System.nanoTime();
+        }
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public double getSqlMillis() {
+        return sqlNanos / 1_000_000.0;
+    }
+
+    /**
+     * Time until the handler returned, including database time
+     */
+    public double getAppMillis(long now) {
+        return ((handlerEnd != 0 ? handlerEnd : now) - start) / 1_000_000.0;
+    }
+
+    /**
+     * Time spent writing the response body, 0 if there was none
+     */
+    public double getSerializationMillis(long now) {
+        return handlerEnd != 0 ? (now - handlerEnd) / 1_000_000.0 : 0;
+    }
+
+    public double getTotalMillis(long now) {
+        return (now - start) / 1_000_000.0;
+    }
+
+    String toServerTiming(long now) {
+        StringBuilder header = new StringBuilder(160);
+        header.append(String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d SQL statements\"", getSqlMillis(), sqlStatements));
+        header.append(String.format(Locale.ROOT, ", app;dur=%.2f", getAppMillis(now)));
+        if (handlerEnd != 0) {
+            header.append(String.format(Locale.ROOT, ", ser;dur=%.2f", getSerializationMillis(now)));
+        }
+        header.append(String.format(Locale.ROOT, ", total;dur=%.2f", getTotalMillis(now)));
+        return header.toString();
+    }
+}
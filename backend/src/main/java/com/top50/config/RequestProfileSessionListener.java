@@ -0,0 +1,36 @@
+package com.top50.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds each JDBC statement execution (a batch counts once) to the current {@link RequestProfile}.
+ * Instantiated by Hibernate for every session, see {@link SqlStatementConfig}.
+ */
+public class RequestProfileSessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.statementStarted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.statementFinished();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        jdbcExecuteStatementStart();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+}
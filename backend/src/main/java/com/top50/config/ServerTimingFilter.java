@@ -0,0 +1,107 @@
+package com.top50.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds a Server-Timing header to API responses: database time and SQL statement count, handler
+ * time, serialization time and total, e.g.
+ * {@code db;dur=3.10;desc="4 SQL statements", app;dur=5.02, ser;dur=0.81, total;dur=5.90}.
+ *
+ * The body is buffered so the header can include serialization time; streamed responses are
+ * excluded via server-timing.exclude. A sample of requests (and every request slower than
+ * server-timing.log-slower-than) is also logged as one key=value line.
+ */
+@Component
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${server-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${server-timing.exclude:/api/export/**,/api/events/**}")
+    private List<String> excluded;
+
+    @Value("${server-timing.log-sample-rate:0.01}")
+    private double logSampleRate;
+
+    @Value("${server-timing.log-slower-than:1s}")
+    private Duration logSlowerThan;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || excluded.stream().anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestProfile profile = RequestProfile.start();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            profile.end();
+            if (request.isAsyncStarted()) {
+                // Not expected for excluded paths; send the buffered body once the async request completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) throws IOException {
+                        complete(request, wrapper, profile);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                complete(request, wrapper, profile);
+            }
+        }
+    }
+
+    private void complete(HttpServletRequest request, ContentCachingResponseWrapper response, RequestProfile profile)
+            throws IOException {
+        long now = System.nanoTime();
+        response.setHeader("Server-Timing", profile.toServerTiming(now));
+        response.copyBodyToResponse();
+
+        double total = profile.getTotalMillis(now);
+        if (total >= logSlowerThan.toMillis() || ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            log.info(String.format(Locale.ROOT,
+                    "request method=%s path=%s status=%d total_ms=%.2f app_ms=%.2f db_ms=%.2f sql_statements=%d ser_ms=%.2f",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), total,
+                    profile.getAppMillis(now), profile.getSqlMillis(), profile.getSqlStatements(),
+                    profile.getSerializationMillis(now)));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.top50.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls to the annotated method with equal arguments share one execution, see
+ * {@link SingleFlightAspect}. For read endpoints whose result only depends on their arguments, e.g.
+ * (endpoint, user, week) for a week's chart.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+}
@@ -0,0 +1,104 @@
+package com.top50.config;
+
+import com.top50.service.ChartDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent identical calls of {@link SingleFlight} methods: the first call for a key
+ * (method and arguments) runs, calls arriving while it is in flight wait for it and get the same
+ * result or exception. When a new week is published and every client asks for it at once, the
+ * database sees one query chain per distinct key instead of one per client.
+ *
+ * Runs before {@link BulkheadAspect}, so waiting calls do not hold a bulkhead permit. A call waits
+ * at most singleflight.max-wait; after that, or when its thread is interrupted, it runs itself and
+ * goes through the bulkhead like any other call, which answers 503 when no permit comes. Nothing is
+ * kept after a call completes; when chart data changes, calls in flight are no longer joined, so a
+ * request arriving after an import never gets a result computed before it.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SingleFlightAspect {
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter shared;
+    private final Counter expired;
+    private final Duration maxWait;
+
+    public SingleFlightAspect(MeterRegistry meterRegistry,
+                              @Value("${singleflight.max-wait:${bulkhead.max-wait:2s}}") Duration maxWait) {
+        this.shared = Counter.builder("singleflight.shared")
+            .description("Calls that got the result of an identical call already in flight")
+            .register(meterRegistry);
+        this.expired = Counter.builder("singleflight.expired")
+            .description("Calls that stopped waiting for an identical call in flight and ran themselves")
+            .register(meterRegistry);
+        this.maxWait = maxWait;
+    }
+
+    @Around("@annotation(com.top50.config.SingleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        List<Object> key = key(joinPoint);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            try {
+                Object result = existing.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                shared.increment();
+                return result;
+            } catch (ExecutionException e) {
+                shared.increment();
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                expired.increment();
+                return joinPoint.proceed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                expired.increment();
+                return joinPoint.proceed();
+            }
+        }
+
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_READ_CACHES)
+    public void onChartDataChanged(ChartDataChangedEvent event) {
+        inFlight.clear();
+    }
+
+    private static List<Object> key(ProceedingJoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        Object[] key = Arrays.copyOf(args, args.length + 1);
+        key[args.length] = joinPoint.getSignature().toLongString();
+        return Arrays.asList(key);
+    }
+}
@@ -0,0 +1,130 @@
+package com.top50.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Times statement executions and hands slow ones to {@link SlowQueryLog}, together with the
+ * parameters bound to them.
+ *
+ * Statements are only wrapped while the slow-query log is enabled, so when it is switched off the
+ * cost is one proxy call per prepareStatement.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result = SlowQueryDataSource.invoke(target, method, args);
+            if (!slowQueryLog.isEnabled()) {
+                return result;
+            }
+            String name = method.getName();
+            if (result instanceof PreparedStatement statement && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                Class<?> type = name.equals("prepareCall") ? CallableStatement.class : PreparedStatement.class;
+                return Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[] {type},
+                        new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[] {Statement.class},
+                        new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return SlowQueryDataSource.invoke(target, method, args);
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    if (slowQueryLog.isSlow(nanos)) {
+                        String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                        slowQueryLog.logSlow(executed, parameters, nanos);
+                    }
+                }
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            return SlowQueryDataSource.invoke(target, method, args);
+        }
+    }
+}
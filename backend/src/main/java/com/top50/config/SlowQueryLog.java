@@ -0,0 +1,79 @@
+package com.top50.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs SQL statements slower than a threshold, with their bound parameters, to the
+ * com.top50.sql.slow logger. Settings can be changed at runtime through the slowqueries
+ * actuator endpoint; while disabled, statements are not wrapped at all.
+ */
+public class SlowQueryLog {
+    private static final Logger log = LoggerFactory.getLogger("com.top50.sql.slow");
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private volatile boolean enabled;
+    private volatile long thresholdNanos;
+    private volatile double sampleRate;
+
+    public SlowQueryLog(boolean enabled, Duration threshold, double sampleRate) {
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    public void setThreshold(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Log a statement that took at least the threshold; a share of them given by the sample rate
+     */
+    void logSlow(String sql, Map<Integer, Object> parameters, long nanos) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        log.warn("Slow SQL ({} ms): {} parameters={}", nanos / 1_000_000, sql, format(parameters));
+    }
+
+    private static String format(Map<Integer, Object> parameters) {
+        StringBuilder text = new StringBuilder("[");
+        parameters.forEach((index, value) -> {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            String string = String.valueOf(value);
+            text.append(index).append('=')
+                    .append(string.length() > MAX_PARAMETER_LENGTH ? string.substring(0, MAX_PARAMETER_LENGTH) + "..." : string);
+        });
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.top50.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Slow-query log: wraps the application's datasource in a {@link SlowQueryDataSource}.
+ *
+ * The initial settings come from slow-query-log.*; GET /actuator/slowqueries shows them and POST
+ * changes them at runtime, e.g. {@code {"enabled": true, "thresholdMs": 50}}.
+ */
+@Configuration
+@Profile("!files")
+public class SlowQueryLogConfig {
+
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${slow-query-log.enabled:false}") boolean enabled,
+                                     @Value("${slow-query-log.threshold:200ms}") Duration threshold,
+                                     @Value("${slow-query-log.sample-rate:1.0}") double sampleRate) {
+        return new SlowQueryLog(enabled, threshold, sampleRate);
+    }
+
+    /**
+     * Only the "dataSource" bean is wrapped; with a replica (DataSourceRoutingConfig) that is the
+     * routing proxy, so the primary and replica pools are not timed twice
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new SlowQueryDataSource(dataSource, slowQueryLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+
+    @Endpoint(id = "slowqueries")
+    public static class SlowQueryEndpoint {
+        private final SlowQueryLog slowQueryLog;
+
+        SlowQueryEndpoint(SlowQueryLog slowQueryLog) {
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @ReadOperation
+        public Map<String, Object> settings() {
+            return Map.of(
+                "enabled", slowQueryLog.isEnabled(),
+                "thresholdMs", slowQueryLog.getThreshold().toMillis(),
+                "sampleRate", slowQueryLog.getSampleRate()
+            );
+        }
+
+        @WriteOperation
+        public Map<String, Object> update(@Nullable Boolean enabled, @Nullable Long thresholdMs, @Nullable Double sampleRate) {
+            if (thresholdMs != null) {
+                slowQueryLog.setThreshold(Duration.ofMillis(thresholdMs));
+            }
+            if (sampleRate != null) {
+                slowQueryLog.setSampleRate(sampleRate);
+            }
+            if (enabled != null) {
+                slowQueryLog.setEnabled(enabled);
+            }
+            return settings();
+        }
+    }
+}
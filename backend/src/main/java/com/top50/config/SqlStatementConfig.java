@@ -0,0 +1,34 @@
+package com.top50.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Installs {@link SqlStatementCounter} as Hibernate's statement inspector and
+ * {@link RequestProfileSessionListener} as a listener of every session.
+ *
+ * Replaces Spring Boot's transaction management setup with the same class-based proxies, ordered so
+ * the transaction is open when {@link QueryBudgetAspect} starts counting.
+ */
+@Configuration
+@Profile("!files")
+@EnableTransactionManagement(proxyTargetClass = true, order = QueryBudgetAspect.ORDER - 1)
+public class SqlStatementConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCustomizer(SqlStatementCounter counter) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, RequestProfileSessionListener.class.getName());
+        };
+    }
+}
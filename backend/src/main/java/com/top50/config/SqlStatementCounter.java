@@ -0,0 +1,78 @@
+package com.top50.config;
+
+import com.top50.exception.QueryBudgetExceededException;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a {@link Scope} is open.
+ *
+ * Registered as Hibernate's statement inspector, so it sees every statement including lazy loads,
+ * native queries and bulk updates; a JDBC batch counts once. The SQL is passed through unchanged.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final ThreadLocal<Deque<Scope>> SCOPES = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (Scope scope : scopes) {
+                scope.count++;
+                if (scope.limit >= 0 && scope.count > scope.limit) {
+                    throw new QueryBudgetExceededException(scope.name, scope.limit, sql);
+                }
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting statements on this thread. Scopes nest; each one counts the statements issued
+     * while it is open.
+     *
+     * @param limit statement count above which the next statement fails, or -1 to only count
+     */
+    public Scope open(String name, int limit) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        Scope scope = new Scope(name, limit);
+        scopes.push(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final int limit;
+        private int count;
+
+        private Scope(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            if (scopes != null) {
+                scopes.remove(this);
+                if (scopes.isEmpty()) {
+                    SCOPES.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.top50.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs how long after JVM start the application became ready and completed its first request, the
+ * numbers to compare when tuning startup (see README-PERFORMANCE.md)
+ */
+@Component
+@Slf4j
+public class StartupTimingLogger {
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        log.info("Startup: ready {} ms after JVM start (application context {} ms)",
+                uptimeMillis(), event.getTimeTaken().toMillis());
+    }
+
+    @EventListener(ServletRequestHandledEvent.class)
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestSeen.get() || !firstRequestSeen.compareAndSet(false, true)) {
+            return;
+        }
+        log.info("Startup: first request {} {} completed {} ms after JVM start (status {}, {} ms)",
+                event.getMethod(), event.getRequestUrl(), uptimeMillis(), event.getStatusCode(),
+                event.getProcessingTimeMillis());
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -0,0 +1,23 @@
+package com.top50.controller;
+
+import com.top50.dto.CacheStatisticsDto;
+import com.top50.service.EntityCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("!files")
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    private final EntityCacheService entityCacheService;
+    
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatisticsDto> getCacheStatistics() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+}
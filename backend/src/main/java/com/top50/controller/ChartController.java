@@ -1,9 +1,12 @@
 package com.top50.controller;
 
+import com.top50.config.Bulkhead;
+import com.top50.config.SingleFlight;
 import com.top50.dto.ChartEntryDto;
 import com.top50.dto.TrackDto;
 import com.top50.dto.TrackHistoryDto;
-import com.top50.service.DatabaseChartService;
+import com.top50.service.ChartDataSources;
+import com.top50.service.ChartReadCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,47 +14,54 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 @RestController
+@Bulkhead("chart")
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class ChartController {
-    private final DatabaseChartService databaseChartService;
+    private final ChartDataSources chartDataSources;
+    private final ChartReadCache chartReadCache;
 
     @GetMapping("/tracks")
+    @SingleFlight
     public ResponseEntity<List<TrackDto>> getAllTracks(
             @RequestParam(required = false, defaultValue = "Walter") String user) {
-        return ResponseEntity.ok(databaseChartService.getAllTracks(user));
+        return ResponseEntity.ok(chartDataSources.active().getAllTracks(user));
     }
 
     @GetMapping("/tracks/{trackId}/history")
+    @SingleFlight
     public ResponseEntity<TrackHistoryDto> getTrackHistory(
             @PathVariable String trackId,
             @RequestParam(required = false, defaultValue = "Walter") String user) {
         try {
-            return ResponseEntity.ok(databaseChartService.getTrackHistory(trackId, user));
+            return ResponseEntity.ok(chartDataSources.active().getTrackHistory(trackId, user));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping("/chart/{user}")
+    @SingleFlight
     public ResponseEntity<List<ChartEntryDto>> getChartByUserAndWeek(
             @PathVariable String user,
             @RequestParam String week) {
-        return ResponseEntity.ok(databaseChartService.getChartByWeek(week, user));
+        return ResponseEntity.ok(chartReadCache.getChartByWeek(week, user));
     }
     
     @GetMapping("/weeks/{user}")
+    @SingleFlight
     public ResponseEntity<List<String>> getAvailableWeeks(@PathVariable String user) {
-        return ResponseEntity.ok(databaseChartService.getAllWeeks(user));
+        return ResponseEntity.ok(chartReadCache.getAllWeeks(user));
     }
 
     @GetMapping("/chart/{user}/dropped")
+    @SingleFlight
     public ResponseEntity<List<ChartEntryDto>> getDroppedTracks(
             @PathVariable String user,
             @RequestParam String week) {
-        return ResponseEntity.ok(databaseChartService.getDroppedTracks(week, user));
+        return ResponseEntity.ok(chartReadCache.getDroppedTracks(week, user));
     }
 
-    // Download endpoint removed - can be re-implemented if needed
+    // Full history download: see ExportController
 
 }
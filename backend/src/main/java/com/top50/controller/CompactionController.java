@@ -0,0 +1,32 @@
+package com.top50.controller;
+
+import com.top50.dto.CompactionReportDto;
+import com.top50.service.CompactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Profile("!files")
+@RequestMapping("/api/compaction")
+@RequiredArgsConstructor
+public class CompactionController {
+    private final CompactionService compactionService;
+
+    @GetMapping("/last")
+    public ResponseEntity<CompactionReportDto> getLastReport() {
+        CompactionReportDto report = compactionService.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Run a compaction now; 409 if one is already running
+     */
+    @PostMapping("/run")
+    public ResponseEntity<CompactionReportDto> runCompaction() {
+        CompactionReportDto report = compactionService.compact();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.top50.controller;
+
+import com.top50.service.ChartDataSource;
+import com.top50.service.ChartDataSources;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/datasources")
+@RequiredArgsConstructor
+public class DataSourceController {
+    private final ChartDataSources chartDataSources;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getDataSources() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("active", chartDataSources.active().getName());
+        response.put("available", chartDataSources.all().stream().map(ChartDataSource::getName).toList());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,26 @@
+package com.top50.controller;
+
+import com.top50.service.ChartEventStream;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventController {
+    private final ChartEventStream chartEventStream;
+
+    /**
+     * Server-Sent Events for a user's charts: a "chart" event with week, version and entry count after
+     * every import, delete or restore, and heartbeat comments in between
+     */
+    @GetMapping(value = "/{user}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable String user, HttpServletResponse response) {
+        // Tell nginx not to buffer the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        return chartEventStream.subscribe(user);
+    }
+}
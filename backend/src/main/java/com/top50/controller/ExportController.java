@@ -0,0 +1,44 @@
+package com.top50.controller;
+
+import com.top50.service.ChartExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@Profile("!files")
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+    private final ChartExportService chartExportService;
+
+    /**
+     * Download a user's full chart history as json, ndjson or csv
+     */
+    @GetMapping("/{user}")
+    public ResponseEntity<StreamingResponseBody> exportCharts(
+            @PathVariable String user,
+            @RequestParam(required = false, defaultValue = "json") String format) {
+        ChartExportService.Format exportFormat = ChartExportService.Format.parse(format);
+        StreamingResponseBody body = chartExportService.export(user, exportFormat);
+
+        MediaType contentType = switch (exportFormat) {
+            case JSON -> MediaType.APPLICATION_JSON;
+            case NDJSON -> MediaType.APPLICATION_NDJSON;
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+        };
+        String filename = user + "-charts." + exportFormat.getExtension();
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
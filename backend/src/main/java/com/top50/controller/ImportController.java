@@ -1,13 +1,17 @@
 package com.top50.controller;
 
+import com.top50.config.Bulkhead;
 import com.top50.dto.JsonImportRequest;
 import com.top50.service.DataImportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@Bulkhead("import")
+@Profile("!files")
 @RequestMapping("/api/import")
 @RequiredArgsConstructor
 @Slf4j
@@ -57,8 +61,8 @@ public class ImportController {
         
         try {
             log.info("Deleting chart entries for user: {}, week: {}", user, week);
-            dataImportService.deleteChartEntriesForWeek(week, user);
-            return ResponseEntity.ok().body(new ImportResponse("Chart entries deleted successfully", week));
+            int deleted = dataImportService.deleteChartEntriesForWeek(week, user);
+            return ResponseEntity.ok().body(new ChangeResponse("Chart entries deleted successfully", week, deleted));
         } catch (Exception e) {
             // Exceptions are now handled by GlobalExceptionHandler
             // This catch is for any unexpected exceptions
@@ -67,6 +71,62 @@ public class ImportController {
         }
     }
     
+    @PostMapping("/week/restore")
+    public ResponseEntity<?> restoreWeekData(
+            @RequestParam String week,
+            @RequestParam(required = false, defaultValue = "Walter") String user) {
+        if (!week.matches(WEEK_PATTERN)) {
+            return invalidWeek();
+        }
+        int restored = dataImportService.restoreChartEntriesForWeek(week, user);
+        return ResponseEntity.ok().body(new ChangeResponse("Chart entries restored successfully", week, restored));
+    }
+    
+    @DeleteMapping("/weeks")
+    public ResponseEntity<?> deleteWeekRangeData(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false, defaultValue = "Walter") String user) {
+        if (!from.matches(WEEK_PATTERN) || !to.matches(WEEK_PATTERN)) {
+            return invalidWeek();
+        }
+        log.info("Deleting chart entries for user: {}, weeks: {} - {}", user, from, to);
+        int deleted = dataImportService.deleteChartEntriesForWeekRange(from, to, user);
+        return ResponseEntity.ok().body(new ChangeResponse("Chart entries deleted successfully", from + ".." + to, deleted));
+    }
+    
+    @PostMapping("/weeks/restore")
+    public ResponseEntity<?> restoreWeekRangeData(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false, defaultValue = "Walter") String user) {
+        if (!from.matches(WEEK_PATTERN) || !to.matches(WEEK_PATTERN)) {
+            return invalidWeek();
+        }
+        int restored = dataImportService.restoreChartEntriesForWeekRange(from, to, user);
+        return ResponseEntity.ok().body(new ChangeResponse("Chart entries restored successfully", from + ".." + to, restored));
+    }
+    
+    @DeleteMapping("/playlist")
+    public ResponseEntity<?> deletePlaylistData(
+            @RequestParam(required = false, defaultValue = "Walter") String user) {
+        log.info("Deleting all chart entries for user: {}", user);
+        int deleted = dataImportService.deleteChartEntriesForPlaylist(user);
+        return ResponseEntity.ok().body(new ChangeResponse("Chart entries deleted successfully", null, deleted));
+    }
+    
+    @PostMapping("/playlist/restore")
+    public ResponseEntity<?> restorePlaylistData(
+            @RequestParam(required = false, defaultValue = "Walter") String user) {
+        int restored = dataImportService.restoreChartEntriesForPlaylist(user);
+        return ResponseEntity.ok().body(new ChangeResponse("Chart entries restored successfully", null, restored));
+    }
+    
+    private static ResponseEntity<?> invalidWeek() {
+        return ResponseEntity.badRequest()
+                .body(new ImportResponse("Invalid week format. Expected YYYY-Www (e.g., 2026-W05)", null));
+    }
+    
     private static class ImportResponse {
         private String message;
         private String week;
@@ -79,4 +139,20 @@ public class ImportController {
         public String getMessage() { return message; }
         public String getWeek() { return week; }
     }
+    
+    private static class ChangeResponse {
+        private String message;
+        private String week;
+        private int affected;
+        
+        public ChangeResponse(String message, String week, int affected) {
+            this.message = message;
+            this.week = week;
+            this.affected = affected;
+        }
+        
+        public String getMessage() { return message; }
+        public String getWeek() { return week; }
+        public int getAffected() { return affected; }
+    }
 }
@@ -0,0 +1,29 @@
+package com.top50.controller;
+
+import com.top50.dto.TrackDto;
+import com.top50.service.TrackSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Profile("!files")
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+    private final TrackSearchIndex trackSearchIndex;
+    
+    private static final int MAX_LIMIT = 100;
+
+    @GetMapping
+    public ResponseEntity<List<TrackDto>> searchTracks(
+            @RequestParam String q,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(trackSearchIndex.search(q, user, boundedLimit));
+    }
+}
@@ -0,0 +1,32 @@
+package com.top50.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsDto {
+    private long secondLevelHits;
+    private long secondLevelMisses;
+    private long secondLevelPuts;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    private long queryCachePuts;
+    private List<RegionStatistics> regions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStatistics {
+        private String region;
+        private long hits;
+        private long misses;
+        private long puts;
+        private long elementsInMemory;
+        private Double hitRatio; // null until the region has been read
+    }
+}
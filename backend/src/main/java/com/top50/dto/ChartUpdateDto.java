@@ -0,0 +1,14 @@
+package com.top50.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartUpdateDto {
+    private String week; // Null when several weeks changed
+    private long version; // Per user, increases with every change
+    private Integer entries; // Entries in the week after the change, null when several weeks changed
+}
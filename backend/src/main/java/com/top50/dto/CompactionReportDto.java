@@ -0,0 +1,28 @@
+package com.top50.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactionReportDto {
+    private LocalDateTime startedAt;
+    private long durationMillis;
+    private Map<String, Integer> rowsReclaimed; // Per table
+    private List<Batch> batches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Batch {
+        private String table;
+        private int rows;
+        private long millis;
+    }
+}
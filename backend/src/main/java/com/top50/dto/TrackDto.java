@@ -1,5 +1,6 @@
 package com.top50.dto;
 
+import com.top50.util.SpotifyIds;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +14,12 @@ public class TrackDto {
     private String id;
     private String title;
     private List<String> artists;
-    private String spotifyUrl;
     private String imageUrl; // Album cover image URL
+
+    /**
+     * Spotify URL, derived from the track id rather than stored
+     */
+    public String getSpotifyUrl() {
+        return SpotifyIds.toTrackUrl(id);
+    }
 }
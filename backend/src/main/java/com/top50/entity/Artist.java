@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -11,6 +13,8 @@ import java.time.LocalDateTime;
 @Table(name = "artists", uniqueConstraints = {
     @UniqueConstraint(columnNames = "normalized_name")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "artist")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,4 +34,8 @@ public class Artist {
 
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+
+    // Last reuse by an import, which keeps compaction away from the artist (see CompactionService)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
 }
@@ -10,8 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "chart_entries", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"playlist_id", "week_id", "track_id"}),
-    @UniqueConstraint(columnNames = {"playlist_id", "week_id", "position"})
+    @UniqueConstraint(columnNames = {"playlist_id", "week_id", "track_id", "week_year"}),
+    @UniqueConstraint(columnNames = {"playlist_id", "week_id", "position", "week_year"})
 })
 @Data
 @NoArgsConstructor
@@ -36,6 +36,10 @@ public class ChartEntry {
     @ToString.Exclude
     private Week week;
 
+    // Copy of week.weekYear, the partitioning column of chart_entries
+    @Column(name = "week_year", nullable = false, updatable = false)
+    private Integer weekYear;
+
     @Column(nullable = false)
     private Integer position;
 
@@ -1,10 +1,16 @@
 package com.top50.entity;
 
+import com.top50.util.ArtistNames;
+import com.top50.util.SpotifyIds;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,24 +18,34 @@ import java.util.List;
 
 @Entity
 @Table(name = "tracks")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "track")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Track {
     @Id
-    @Column(length = 50)
-    private String id;
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "spotify_id", nullable = false, unique = true, length = SpotifyIds.LENGTH)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private String spotifyId;
 
     @Column(nullable = false, length = 255)
     private String title;
 
-    @Column(name = "spotify_url", nullable = false, length = 500)
-    private String spotifyUrl;
-
     @Column(name = "image_url", length = 500)
     private String imageUrl;
 
+    /**
+     * Artist names in credit order, encoded by {@link ArtistNames}; a read copy of {@link #artists}
+     */
+    @Column(name = "artist_names", columnDefinition = "TEXT")
+    private String artistNames;
+
     @OneToMany(mappedBy = "track", orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "trackArtists")
     @ToString.Exclude
     private List<TrackArtist> artists = new ArrayList<>();
 
@@ -41,4 +57,18 @@ public class Track {
 
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
+
+    /**
+     * Spotify URL, derived from the Spotify id rather than stored
+     */
+    public String getSpotifyUrl() {
+        return SpotifyIds.toTrackUrl(spotifyId);
+    }
+
+    /**
+     * Artist names in credit order, read from the denormalized column
+     */
+    public List<String> getArtistNameList() {
+        return ArtistNames.split(artistNames);
+    }
 }
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "track_artists", uniqueConstraints = {
@@ -12,6 +14,8 @@ import lombok.ToString;
     @UniqueConstraint(columnNames = {"track_id", "position"})
 })
 @IdClass(TrackArtistId.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "trackArtist")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
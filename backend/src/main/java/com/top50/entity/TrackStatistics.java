@@ -16,8 +16,8 @@ import java.time.LocalDateTime;
 @IdClass(TrackStatisticsId.class)
 public class TrackStatistics {
     @Id
-    @Column(name = "track_id", length = 50)
-    private String trackId;
+    @Column(name = "track_id")
+    private Integer trackId;
 
     @Id
     @Column(name = "playlist_id", length = 36)
@@ -54,6 +54,6 @@ public class TrackStatistics {
 @NoArgsConstructor
 @AllArgsConstructor
 class TrackStatisticsId implements java.io.Serializable {
-    private String trackId;
+    private Integer trackId;
     private String playlistId;
 }
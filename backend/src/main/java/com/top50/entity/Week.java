@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "weeks")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "week")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
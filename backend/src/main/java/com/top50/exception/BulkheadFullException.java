@@ -0,0 +1,7 @@
+package com.top50.exception;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String bulkhead, int maxConcurrent) {
+        super("Too many concurrent " + bulkhead + " requests (limit " + maxConcurrent + "), try again later");
+    }
+}
@@ -0,0 +1,7 @@
+package com.top50.exception;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String method, int budget, String sql) {
+        super(method + " exceeded its budget of " + budget + " SQL statements at: " + sql);
+    }
+}
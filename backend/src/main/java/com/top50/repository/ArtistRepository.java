@@ -1,13 +1,40 @@
 package com.top50.repository;
 
 import com.top50.entity.Artist;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ArtistRepository extends JpaRepository<Artist, String> {
     Optional<Artist> findByNormalizedName(String normalizedName);
     Optional<Artist> findByName(String name);
+    
+    /**
+     * Lock and return up to batchSize artists, created and last reused before the cutoff, without
+     * any track. Rows locked by other transactions (e.g. a running import) are skipped.
+     */
+    @Query(value = "SELECT a.id FROM artists a WHERE a.created_at < :createdBefore AND (a.updated_at IS NULL OR a.updated_at < :createdBefore) AND NOT EXISTS (SELECT 1 FROM track_artists ta WHERE ta.artist_id = a.id) ORDER BY a.id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockOrphanedArtistIds(@Param("createdBefore") LocalDateTime createdBefore, @Param("batchSize") int batchSize);
+    
+    /**
+     * Lock an artist for an import that reuses it (see DataImportService#getOrCreateArtist). Blocks
+     * while compaction holds the row; empty means compaction removed the artist meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Artist a WHERE a.id = :id")
+    Optional<Artist> lockById(@Param("id") String id);
+    
+    @Modifying
+    @Query(value = "DELETE FROM artists WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<String> ids);
 }
@@ -4,13 +4,20 @@ import com.top50.entity.ChartEntry;
 import com.top50.entity.Playlist;
 import com.top50.entity.Track;
 import com.top50.entity.Week;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChartEntryRepository extends JpaRepository<ChartEntry, String> {
@@ -19,20 +26,95 @@ public interface ChartEntryRepository extends JpaRepository<ChartEntry, String>
     @Query("SELECT DISTINCT ce.week FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.deletedAt IS NULL ORDER BY ce.week.startDate DESC")
     List<Week> findDistinctWeeksByPlaylist(@Param("playlist") Playlist playlist);
     
-    @Query("SELECT ce FROM ChartEntry ce WHERE ce.track = :track AND ce.playlist = :playlist AND ce.deletedAt IS NULL ORDER BY ce.week.startDate")
+    /**
+     * Which of the given weeks have live entries in the playlist; answered from the
+     * (playlist_id, week_id, deleted_at) index without joining weeks
+     */
+    @Query("SELECT DISTINCT ce.week.id FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week.id IN :weekIds AND ce.deletedAt IS NULL")
+    List<String> findChartedWeekIds(@Param("playlist") Playlist playlist, @Param("weekIds") Collection<String> weekIds);
+    
+    @Query("SELECT ce FROM ChartEntry ce JOIN FETCH ce.week w WHERE ce.track = :track AND ce.playlist = :playlist AND ce.deletedAt IS NULL ORDER BY w.startDate")
     List<ChartEntry> findByTrackAndPlaylistOrderByWeek(@Param("track") Track track, @Param("playlist") Playlist playlist);
     
-    Optional<ChartEntry> findByPlaylistAndTrackAndWeekAndDeletedAtIsNull(Playlist playlist, Track track, Week week);
+    /**
+     * The week year restricts the lookup to one partition of chart_entries
+     */
+    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.track = :track AND ce.week = :week AND ce.weekYear = :#{#week.weekYear} AND ce.deletedAt IS NULL")
+    Optional<ChartEntry> findByPlaylistAndTrackAndWeekAndDeletedAtIsNull(@Param("playlist") Playlist playlist, @Param("track") Track track, @Param("week") Week week);
     
-    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week = :week AND ce.deletedAt IS NULL ORDER BY ce.position")
+    /**
+     * Entries of a week with their tracks (including the denormalized artist names) fetched in the
+     * same statement. The week year restricts the query to one partition of chart_entries.
+     */
+    @Query("SELECT ce FROM ChartEntry ce JOIN FETCH ce.track t WHERE ce.playlist = :playlist AND ce.week = :week AND ce.weekYear = :#{#week.weekYear} AND ce.deletedAt IS NULL ORDER BY ce.position")
     List<ChartEntry> findByPlaylistAndWeekOrderByPosition(@Param("playlist") Playlist playlist, @Param("week") Week week);
     
+    /**
+     * Distinct tracks charted in a playlist; artists are read from tracks.artist_names
+     */
+    @Query("SELECT DISTINCT t FROM ChartEntry ce JOIN ce.track t WHERE ce.playlist = :playlist AND ce.deletedAt IS NULL AND t.deletedAt IS NULL")
+    List<Track> findDistinctTracksByPlaylist(@Param("playlist") Playlist playlist);
+    
     @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week.startDate < :currentWeekStart AND ce.track = :track AND ce.deletedAt IS NULL ORDER BY ce.week.startDate DESC")
     List<ChartEntry> findPreviousEntry(@Param("playlist") Playlist playlist, @Param("track") Track track, @Param("currentWeekStart") java.time.LocalDate currentWeekStart);
     
-    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week = :week")
+    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week = :week AND ce.weekYear = :#{#week.weekYear}")
     List<ChartEntry> findByPlaylistAndWeek(@Param("playlist") Playlist playlist, @Param("week") Week week);
     
-    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week = :week AND ce.deletedAt IS NULL")
+    @Query("SELECT ce FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.week = :week AND ce.weekYear = :#{#week.weekYear} AND ce.deletedAt IS NULL")
     List<ChartEntry> findByPlaylistAndWeekNotDeleted(@Param("playlist") Playlist playlist, @Param("week") Week week);
+    
+    @Query("SELECT DISTINCT ce.playlist.user.username, ce.track.spotifyId FROM ChartEntry ce WHERE ce.deletedAt IS NULL")
+    List<Object[]> findDistinctUsernameAndTrackIds();
+    
+    @Query("SELECT DISTINCT ce.track.spotifyId FROM ChartEntry ce WHERE ce.playlist.user.username = :username AND ce.deletedAt IS NULL")
+    List<String> findDistinctTrackIdsByUsername(@Param("username") String username);
+    
+    @Query("SELECT ce.week.isoFormat, ce.position, ce.track.id FROM ChartEntry ce WHERE ce.playlist = :playlist AND ce.deletedAt IS NULL ORDER BY ce.week.startDate, ce.position")
+    List<Object[]> findChartRowsByPlaylist(@Param("playlist") Playlist playlist);
+    
+    /**
+     * Rows of (entry id, week, position, Spotify id, title, image URL, artist names) in chart order,
+     * one per entry. Fetch size Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of
+     * buffering the result; the stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT ce.id, w.isoFormat, ce.position, t.spotifyId, t.title, t.imageUrl, t.artistNames FROM ChartEntry ce JOIN ce.week w JOIN ce.track t WHERE ce.playlist.id = :playlistId AND ce.deletedAt IS NULL ORDER BY w.startDate, ce.position")
+    Stream<Object[]> streamExportRows(@Param("playlistId") String playlistId);
+    
+    // Bulk soft delete and restore; each is a single UPDATE returning the number of affected entries
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = :deletedAt WHERE ce.playlist = :playlist AND ce.week = :week AND ce.weekYear = :#{#week.weekYear} AND ce.deletedAt IS NULL")
+    int softDeleteByPlaylistAndWeek(@Param("playlist") Playlist playlist, @Param("week") Week week, @Param("deletedAt") LocalDateTime deletedAt);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = NULL WHERE ce.playlist = :playlist AND ce.week = :week AND ce.weekYear = :#{#week.weekYear} AND ce.deletedAt IS NOT NULL")
+    int restoreByPlaylistAndWeek(@Param("playlist") Playlist playlist, @Param("week") Week week);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = :deletedAt WHERE ce.playlist = :playlist AND ce.deletedAt IS NULL AND ce.week IN (SELECT w FROM Week w WHERE w.startDate BETWEEN :from AND :to)")
+    int softDeleteByPlaylistAndWeekRange(@Param("playlist") Playlist playlist, @Param("from") LocalDate from, @Param("to") LocalDate to, @Param("deletedAt") LocalDateTime deletedAt);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = NULL WHERE ce.playlist = :playlist AND ce.deletedAt IS NOT NULL AND ce.week IN (SELECT w FROM Week w WHERE w.startDate BETWEEN :from AND :to)")
+    int restoreByPlaylistAndWeekRange(@Param("playlist") Playlist playlist, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = :deletedAt WHERE ce.playlist = :playlist AND ce.deletedAt IS NULL")
+    int softDeleteByPlaylist(@Param("playlist") Playlist playlist, @Param("deletedAt") LocalDateTime deletedAt);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChartEntry ce SET ce.deletedAt = NULL WHERE ce.playlist = :playlist AND ce.deletedAt IS NOT NULL")
+    int restoreByPlaylist(@Param("playlist") Playlist playlist);
+    
+    /**
+     * Hard delete up to batchSize entries soft-deleted before the cutoff (see CompactionService)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM chart_entries WHERE deleted_at IS NOT NULL AND deleted_at < :cutoff ORDER BY deleted_at LIMIT :batchSize", nativeQuery = true)
+    int purgeSoftDeleted(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
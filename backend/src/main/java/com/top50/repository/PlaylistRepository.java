@@ -2,6 +2,7 @@ package com.top50.repository;
 
 import com.top50.entity.Playlist;
 import com.top50.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,5 +13,7 @@ import java.util.Optional;
 public interface PlaylistRepository extends JpaRepository<Playlist, String> {
     List<Playlist> findByUserAndDeletedAtIsNull(User user);
     Optional<Playlist> findByUserAndNameAndDeletedAtIsNull(User user, String name);
+
+    @EntityGraph(attributePaths = "user")
     List<Playlist> findByIsPublicTrueAndIsActiveTrueAndDeletedAtIsNull();
 }
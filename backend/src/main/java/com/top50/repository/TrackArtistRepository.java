@@ -4,11 +4,26 @@ import com.top50.entity.Track;
 import com.top50.entity.TrackArtist;
 import com.top50.entity.TrackArtistId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TrackArtistRepository extends JpaRepository<TrackArtist, TrackArtistId> {
     Optional<TrackArtist> findByTrackAndArtistAndPosition(Track track, com.top50.entity.Artist artist, Integer position);
+    
+    @Query("SELECT ta.track.spotifyId, ta.artist.name, ta.artist.normalizedName FROM TrackArtist ta ORDER BY ta.track.id, ta.position")
+    List<Object[]> findAllTrackArtistNames();
+    
+    @Query("SELECT ta.track.id, ta.artist.name FROM TrackArtist ta WHERE ta.track.id IN :trackIds ORDER BY ta.track.id, ta.position")
+    List<Object[]> findTrackArtistNamesByTrackIds(@Param("trackIds") Collection<Integer> trackIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM track_artists WHERE track_id IN (:trackIds)", nativeQuery = true)
+    int deleteByTrackIds(@Param("trackIds") Collection<Integer> trackIds);
 }
@@ -1,12 +1,41 @@
 package com.top50.repository;
 
 import com.top50.entity.Track;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TrackRepository extends JpaRepository<Track, String> {
-    Optional<Track> findByIdAndDeletedAtIsNull(String id);
+public interface TrackRepository extends JpaRepository<Track, Integer> {
+    Optional<Track> findBySpotifyId(String spotifyId);
+    Optional<Track> findBySpotifyIdAndDeletedAtIsNull(String spotifyId);
+    List<Track> findByDeletedAtIsNull();
+    
+    /**
+     * Lock and return up to batchSize tracks, created and last reused before the cutoff, that no
+     * chart entry refers to. Rows locked by other transactions (e.g. a running import) are skipped.
+     */
+    @Query(value = "SELECT t.id FROM tracks t WHERE t.created_at < :createdBefore AND (t.updated_at IS NULL OR t.updated_at < :createdBefore) AND NOT EXISTS (SELECT 1 FROM chart_entries ce WHERE ce.track_id = t.id) ORDER BY t.id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Integer> lockOrphanedTrackIds(@Param("createdBefore") LocalDateTime createdBefore, @Param("batchSize") int batchSize);
+    
+    /**
+     * Lock a track for an import that reuses it (see DataImportService#reuseTrack). Blocks while
+     * compaction holds the row; empty means compaction removed the track meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Track t WHERE t.id = :id")
+    Optional<Track> lockById(@Param("id") Integer id);
+    
+    @Modifying
+    @Query(value = "DELETE FROM tracks WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
 }
@@ -1,12 +1,15 @@
 package com.top50.repository;
 
 import com.top50.entity.Week;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface WeekRepository extends JpaRepository<Week, String> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Week> findByIsoFormat(String isoFormat);
 }
@@ -0,0 +1,189 @@
+package com.top50.service;
+
+import com.top50.config.Bulkheads;
+import com.top50.config.ReadWriteRoutingDataSource;
+import com.top50.entity.Playlist;
+import com.top50.entity.User;
+import com.top50.repository.PlaylistRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Fills {@link ChartReadCache} with the week lists and the latest weeks' charts and dropped tracks of
+ * every public playlist, once the application is ready and the startup import has finished.
+ *
+ * Runs chart.warmup.parallelism reads at a time on the primary, each holding a permit of the "background" bulkhead;
+ * whatever is not done after chart.warmup.budget is cancelled.
+ * As a health indicator it is OUT_OF_SERVICE until warming is done, which keeps the readiness group
+ * (/actuator/health/readiness) down so a load balancer does not route traffic to a cold instance.
+ */
+@Service
+@Profile("!files")
+@RequiredArgsConstructor
+@Slf4j
+public class ChartCacheWarmer implements HealthIndicator {
+    private final PlaylistRepository playlistRepository;
+    private final ChartReadCache chartReadCache;
+    private final Bulkheads bulkheads;
+
+    @Value("${chart.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chart.warmup.weeks:8}")
+    private int weeks;
+
+    @Value("${chart.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${chart.warmup.budget:30s}")
+    private Duration budget;
+
+    private final AtomicBoolean applicationReady = new AtomicBoolean();
+    private final AtomicBoolean importFinished = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Health result;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        applicationReady.set(true);
+        warmWhenDue();
+    }
+
+    @EventListener(StartupImportFinishedEvent.class)
+    public void onStartupImportFinished() {
+        importFinished.set(true);
+        warmWhenDue();
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+        Health warmed = result;
+        return warmed != null ? warmed : Health.outOfService().withDetail("warmup", "in progress").build();
+    }
+
+    private void warmWhenDue() {
+        if (enabled && applicationReady.get() && importFinished.get() && started.compareAndSet(false, true)) {
+            warm();
+        }
+    }
+
+    private void warm() {
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> new Thread(runnable, "chart-warmup"));
+        int users = 0;
+        int warmedWeeks = 0;
+        int skippedWeeks = 0;
+        try {
+            List<String> usernames = playlistRepository.findByIsPublicTrueAndIsActiveTrueAndDeletedAtIsNull().stream()
+                .map(Playlist::getUser)
+                .filter(user -> user.getDeletedAt() == null)
+                .map(User::getUsername)
+                .distinct()
+                .toList();
+            users = usernames.size();
+
+            // Week lists first, then the latest weeks' charts and dropped tracks of every user in parallel
+            List<Callable<List<String>>> weekLists = new ArrayList<>();
+            for (String username : usernames) {
+                weekLists.add(background(() -> chartReadCache.getAllWeeks(username)));
+            }
+            List<Future<List<String>>> weekListResults = executor.invokeAll(weekLists, remaining(deadline), TimeUnit.NANOSECONDS);
+
+            List<Callable<Void>> charts = new ArrayList<>();
+            for (int i = 0; i < usernames.size(); i++) {
+                String username = usernames.get(i);
+                List<String> userWeeks = result(weekListResults.get(i));
+                if (userWeeks == null) {
+                    continue;
+                }
+                for (String week : userWeeks.subList(0, Math.min(weeks, userWeeks.size()))) {
+                    charts.add(background(() -> {
+                        chartReadCache.getChartByWeek(week, username);
+                        chartReadCache.getDroppedTracks(week, username);
+                        return null;
+                    }));
+                }
+            }
+            // Charts not done within the budget are cancelled and left to the first visitor
+            for (Future<Void> chart : executor.invokeAll(charts, remaining(deadline), TimeUnit.NANOSECONDS)) {
+                if (!chart.isCancelled() && result(chart) != null) {
+                    warmedWeeks++;
+                } else {
+                    skippedWeeks++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Warming the chart cache failed: {}", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Warmed chart cache in {} ms: {} users, {} weeks, {} weeks skipped", millis, users, warmedWeeks, skippedWeeks);
+        result = Health.up()
+            .withDetail("users", users)
+            .withDetail("weeks", warmedWeeks)
+            .withDetail("skippedWeeks", skippedWeeks)
+            .withDetail("durationMs", millis)
+            .build();
+    }
+
+    /**
+     * A read holding a "background" permit; it goes to the primary, since warming follows the import
+     * and a replica may not have caught up with it yet
+     */
+    private <T> Callable<T> background(Supplier<T> read) {
+        return () -> {
+            try (Bulkheads.Permit permit = bulkheads.acquireWhenFree("background")) {
+                return ReadWriteRoutingDataSource.onPrimary(read);
+            }
+        };
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * The value of a completed task, or null if it was cancelled or failed
+     */
+    private static <T> T result(Future<T> future) {
+        if (future.isCancelled()) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.warn("Warming the chart cache: {}", e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
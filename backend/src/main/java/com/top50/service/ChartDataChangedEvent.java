@@ -0,0 +1,24 @@
+package com.top50.service;
+
+/**
+ * Published after chart entries for a user have been imported, deleted or restored, so that read models
+ * derived from the database can refresh the affected user.
+ *
+ * @param username The user whose charts changed
+ * @param week The ISO week that changed (e.g. "2026-W05"), or null when several weeks changed
+ * @param entries Number of entries the week has after the change, or null when several weeks changed
+ */
+public record ChartDataChangedEvent(String username, String week, Integer entries) {
+    /**
+     * Listener order: the second-level cache is evicted before the index reloads from the database,
+     * and cached reads are dropped only once the index serves the new data; clients are notified last
+     */
+    public static final int ORDER_ENTITY_CACHE = 100;
+    public static final int ORDER_INDEX = 200;
+    public static final int ORDER_READ_CACHES = 300;
+    public static final int ORDER_CLIENTS = 400;
+
+    public ChartDataChangedEvent(String username, String week) {
+        this(username, week, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.top50.service;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+
+import java.util.List;
+
+/**
+ * Read access to chart data, implemented by the database, the JSON data directory and the in-memory
+ * index. The backend used by the API is selected with {@code chart.datasource}, see
+ * {@link ChartDataSources}.
+ */
+public interface ChartDataSource {
+    /**
+     * Name used in {@code chart.datasource}
+     */
+    String getName();
+
+    /**
+     * Whether every change to the data publishes a {@link ChartDataChangedEvent}, which
+     * {@link ChartReadCache} relies on to drop stale results
+     */
+    default boolean publishesChanges() {
+        return true;
+    }
+
+    /**
+     * All weeks the user has a chart for, most recent first
+     */
+    List<String> getAllWeeks(String username);
+
+    /**
+     * The chart of a week ordered by position, with each track's position in the previous week
+     */
+    List<ChartEntryDto> getChartByWeek(String weekIso, String username);
+
+    /**
+     * Entries of the previous week whose track is not in this week's chart
+     */
+    List<ChartEntryDto> getDroppedTracks(String weekIso, String username);
+
+    /**
+     * Position of a track in every week it charted, oldest first
+     *
+     * @throws RuntimeException if the track has never charted for the user
+     */
+    TrackHistoryDto getTrackHistory(String trackId, String username);
+
+    /**
+     * Every distinct track that has charted for the user
+     */
+    List<TrackDto> getAllTracks(String username);
+}
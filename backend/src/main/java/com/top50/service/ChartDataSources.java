@@ -0,0 +1,49 @@
+package com.top50.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The available {@link ChartDataSource} backends and the one selected with {@code chart.datasource}
+ * ("database", "json" or "memory")
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChartDataSources {
+    private final List<ChartDataSource> dataSources;
+
+    @Value("${chart.datasource:database}")
+    private String selected;
+
+    private ChartDataSource active;
+
+    @PostConstruct
+    void select() {
+        active = find(selected).orElseThrow(() -> new IllegalStateException(
+            "Unknown or unavailable chart.datasource '" + selected + "', available: "
+                + dataSources.stream().map(ChartDataSource::getName).toList()));
+        log.info("Serving chart reads from the {} data source", active.getName());
+    }
+
+    /**
+     * The backend serving the API
+     */
+    public ChartDataSource active() {
+        return active;
+    }
+
+    public List<ChartDataSource> all() {
+        return dataSources;
+    }
+
+    public Optional<ChartDataSource> find(String name) {
+        return dataSources.stream().filter(dataSource -> dataSource.getName().equalsIgnoreCase(name)).findFirst();
+    }
+}
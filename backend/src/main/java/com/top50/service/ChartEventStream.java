@@ -0,0 +1,195 @@
+package com.top50.service;
+
+import com.top50.dto.ChartUpdateDto;
+import com.top50.exception.BulkheadFullException;
+import com.top50.exception.UserNotFoundException;
+import com.top50.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes a "chart" Server-Sent Event ({@link ChartUpdateDto}) to the subscribers of a user when the
+ * user's chart data changes, so clients fetch a new week once instead of polling the week list.
+ *
+ * Every subscription has a bounded buffer (events.buffer-size) drained by its own virtual thread, so a
+ * slow client never blocks the import that published the change. A subscription whose buffer overflows
+ * is closed; the client reconnects and reloads the week list. Heartbeat comments (events.heartbeat)
+ * keep idle connections open through proxies. Versions are kept in memory and count per instance.
+ *
+ * Only existing users can be subscribed to (checked against the database, not in the files profile),
+ * and open subscriptions are capped per user (events.max-subscriptions-per-user) and in total
+ * (events.max-subscriptions). A subscription over a cap is rejected with a
+ * {@link BulkheadFullException} (503) and counted as bulkhead.rejected with name "events".
+ */
+@Service
+@Slf4j
+public class ChartEventStream {
+    @Value("${events.buffer-size:16}")
+    private int bufferSize;
+
+    @Value("${events.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${events.max-subscriptions-per-user:10}")
+    private int maxSubscriptionsPerUser;
+
+    @Value("${events.max-subscriptions:1000}")
+    private int maxSubscriptions;
+
+    private final ObjectProvider<UserRepository> userRepository;
+    private final Counter rejected;
+
+    // Lowercased username -> open subscriptions
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    // Lowercased username -> version of the last change
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public ChartEventStream(ObjectProvider<UserRepository> userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.rejected = Counter.builder("bulkhead.rejected")
+            .description("Calls rejected because their bulkhead was full")
+            .tag("name", "events")
+            .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String username) {
+        String user = username.toLowerCase(Locale.ROOT);
+        UserRepository users = userRepository.getIfAvailable();
+        if (users != null && users.findByUsernameAndDeletedAtIsNull(user).isEmpty()) {
+            throw new UserNotFoundException(username);
+        }
+
+        Subscription subscription = new Subscription(user, new SseEmitter(timeout.toMillis()));
+        if (open.incrementAndGet() > maxSubscriptions) {
+            open.decrementAndGet();
+            throw reject(maxSubscriptions);
+        }
+        boolean[] added = {false};
+        subscriptions.compute(user, (u, set) -> {
+            Set<Subscription> userSubscriptions = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (userSubscriptions.size() < maxSubscriptionsPerUser) {
+                added[0] = userSubscriptions.add(subscription);
+            }
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+        if (!added[0]) {
+            open.decrementAndGet();
+            throw reject(maxSubscriptionsPerUser);
+        }
+
+        subscription.emitter.onCompletion(subscription::close);
+        subscription.emitter.onTimeout(subscription.emitter::complete);
+        subscription.emitter.onError(e -> subscription.close());
+        Thread.ofVirtual().name("sse-" + user).start(subscription::send);
+        return subscription.emitter;
+    }
+
+    /**
+     * Number of open subscriptions of all users
+     */
+    public int getSubscriberCount() {
+        return open.get();
+    }
+
+    private BulkheadFullException reject(int limit) {
+        rejected.increment();
+        return new BulkheadFullException("events", limit);
+    }
+
+    // After the listeners that refresh caches and indexes, so clients never fetch stale data
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_CLIENTS)
+    public void onChartDataChanged(ChartDataChangedEvent event) {
+        String user = event.username().toLowerCase(Locale.ROOT);
+        long version = versions.computeIfAbsent(user, u -> new AtomicLong()).incrementAndGet();
+        Set<Subscription> subscribers = subscriptions.get(user);
+        if (subscribers == null) {
+            return;
+        }
+
+        ChartUpdateDto update = new ChartUpdateDto(event.week(), version, event.entries());
+        for (Subscription subscription : subscribers) {
+            if (!subscription.buffer.offer(update)) {
+                log.debug("Event buffer of a {} subscriber is full, closing it", user);
+                subscription.close();
+                subscription.emitter.complete();
+            }
+        }
+    }
+
+    private class Subscription {
+        final String user;
+        final SseEmitter emitter;
+        final BlockingQueue<ChartUpdateDto> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean closed;
+
+        Subscription(String user, SseEmitter emitter) {
+            this.user = user;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Runs on the subscription's virtual thread until the connection is closed
+         */
+        void send() {
+            try {
+                emitter.send(SseEmitter.event().comment("connected"));
+                while (!closed) {
+                    ChartUpdateDto update = buffer.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (closed) {
+                        break;
+                    }
+                    if (update == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                            .id(Long.toString(update.getVersion()))
+                            .name("chart")
+                            .data(update, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter completed
+                close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscriptions.computeIfPresent(user, (u, set) -> {
+                if (set.remove(this)) {
+                    open.decrementAndGet();
+                }
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
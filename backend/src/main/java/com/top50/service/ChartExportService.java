@@ -0,0 +1,343 @@
+package com.top50.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.config.Bulkheads;
+import com.top50.entity.Playlist;
+import com.top50.entity.User;
+import com.top50.exception.PlaylistNotFoundException;
+import com.top50.exception.UserNotFoundException;
+import com.top50.repository.ChartEntryRepository;
+import com.top50.repository.PlaylistRepository;
+import com.top50.repository.UserRepository;
+import com.top50.util.ArtistNames;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's full chart history from the database as JSON, NDJSON or CSV.
+ *
+ * Rows are read with a forward-only streaming query and written as they arrive, flushing every
+ * {@value #FLUSH_EVERY} entries, so memory use does not depend on the length of the history and
+ * the first bytes are sent before the query has finished. The stream holds a connection after the
+ * controller has returned, so it takes its own "export" bulkhead permit: acquired before the response
+ * starts (a full bulkhead answers 503) and released when the stream ends, or with the request when
+ * the stream never runs (async timeout, client gone, an error before streaming started).
+ */
+@Service
+@Profile("!files")
+@RequiredArgsConstructor
+@Slf4j
+public class ChartExportService {
+    private final UserRepository userRepository;
+    private final PlaylistRepository playlistRepository;
+    private final ChartEntryRepository chartEntryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final Bulkheads bulkheads;
+
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String PERMIT_INTERCEPTOR = ChartExportService.class.getName() + ".permit";
+
+    public enum Format {
+        JSON("json"),
+        NDJSON("ndjson"),
+        CSV("csv");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + format + ". Expected json, ndjson or csv");
+            }
+        }
+    }
+
+    /**
+     * Resolve the user's playlist and take the export permit now (so unknown users and a full
+     * bulkhead fail before the response starts) and return a body that streams the export when written
+     */
+    public StreamingResponseBody export(String username, Format format) {
+        User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
+            .orElseThrow(() -> new UserNotFoundException(username));
+        List<Playlist> playlists = playlistRepository.findByUserAndDeletedAtIsNull(user);
+        if (playlists.isEmpty()) {
+            throw new PlaylistNotFoundException(username);
+        }
+        String playlistId = playlists.get(0).getId();
+        Bulkheads.Permit permit = bulkheads.acquire("export");
+        releaseWithRequest(permit);
+
+        return out -> {
+            try (permit) {
+                stream(out, playlistId, username, format);
+            }
+        };
+    }
+
+    /**
+     * Also release the permit when the request ends without the body having run: with the async
+     * request (completion, timeout or error) once streaming was handed off, otherwise when the
+     * controller's dispatch ends. Closing the permit twice releases it once.
+     */
+    private static void releaseWithRequest(Bulkheads.Permit permit) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(servletAttributes.getRequest());
+        asyncManager.registerCallableInterceptor(PERMIT_INTERCEPTOR, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                permit.close();
+            }
+        });
+        attributes.registerDestructionCallback(PERMIT_INTERCEPTOR, () -> {
+            if (!asyncManager.isConcurrentHandlingStarted()) {
+                permit.close();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private void stream(OutputStream out, String playlistId, String username, Format format) throws IOException {
+        long start = System.nanoTime();
+        ExportWriter writer = switch (format) {
+            case JSON -> new JsonExportWriter(objectMapper, out, username);
+            case NDJSON -> new NdjsonExportWriter(objectMapper, out);
+            case CSV -> new CsvExportWriter(out);
+        };
+        writer.begin();
+        writer.flush();
+
+        // Runs on the async request thread, so the transaction is opened here
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        Integer entries = transaction.execute(status -> {
+            try (Stream<Object[]> rows = chartEntryRepository.streamExportRows(playlistId)) {
+                return writeRows(rows, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        writer.end();
+        writer.flush();
+        log.info("Exported {} chart entries for user: {} as {} in {} ms",
+            entries, username, format, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rows come one per entry, with the artists in the denormalized tracks.artist_names column
+     */
+    private int writeRows(Stream<Object[]> rows, ExportWriter writer) throws IOException {
+        int count = 0;
+        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+            writer.entry((String) row[1], (Integer) row[2], (String) row[3], (String) row[4],
+                ArtistNames.split((String) row[6]), (String) row[5]);
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private interface ExportWriter {
+        void begin() throws IOException;
+
+        void entry(String week, int placement, String trackId, String title, List<String> artists, String imageUrl) throws IOException;
+
+        void end() throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    /**
+     * {"user": ..., "weeks": [{"week": ..., "entries": [...]}]}, entries in the JSON import format
+     */
+    private static final class JsonExportWriter implements ExportWriter {
+        private final JsonGenerator json;
+        private final String username;
+        private String currentWeek;
+
+        JsonExportWriter(ObjectMapper objectMapper, OutputStream out, String username) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.username = username;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            json.writeStartObject();
+            json.writeStringField("user", username);
+            json.writeArrayFieldStart("weeks");
+        }
+
+        @Override
+        public void entry(String week, int placement, String trackId, String title, List<String> artists, String imageUrl) throws IOException {
+            if (!week.equals(currentWeek)) {
+                if (currentWeek != null) {
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                currentWeek = week;
+                json.writeStartObject();
+                json.writeStringField("week", week);
+                json.writeArrayFieldStart("entries");
+            }
+            writeJsonEntry(json, null, placement, trackId, title, artists, imageUrl);
+        }
+
+        @Override
+        public void end() throws IOException {
+            if (currentWeek != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.close();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    /**
+     * One JSON object per line, each with its week
+     */
+    private static final class NdjsonExportWriter implements ExportWriter {
+        private final JsonGenerator json;
+
+        NdjsonExportWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(null); // Lines are terminated explicitly
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void entry(String week, int placement, String trackId, String title, List<String> artists, String imageUrl) throws IOException {
+            writeJsonEntry(json, week, placement, trackId, title, artists, imageUrl);
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            json.close();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; artists are joined with "; "
+     */
+    private static final class CsvExportWriter implements ExportWriter {
+        private final Writer csv;
+
+        CsvExportWriter(OutputStream out) {
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            csv.write("week,placement,track_id,title,artists,image_url\r\n");
+        }
+
+        @Override
+        public void entry(String week, int placement, String trackId, String title, List<String> artists, String imageUrl) throws IOException {
+            csv.write(week);
+            csv.write(',');
+            csv.write(Integer.toString(placement));
+            csv.write(',');
+            csv.write(trackId);
+            csv.write(',');
+            writeField(title);
+            csv.write(',');
+            writeField(String.join("; ", artists));
+            csv.write(',');
+            writeField(imageUrl);
+            csv.write("\r\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            csv.flush();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            csv.flush();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                csv.write(value);
+                return;
+            }
+            csv.write('"');
+            csv.write(value.replace("\"", "\"\""));
+            csv.write('"');
+        }
+    }
+
+    /**
+     * An entry in the JSON import format, with its week unless null
+     */
+    private static void writeJsonEntry(JsonGenerator json, String week, int placement, String trackId, String title,
+                                       List<String> artists, String imageUrl) throws IOException {
+        json.writeStartObject();
+        if (week != null) {
+            json.writeStringField("week", week);
+        }
+        json.writeNumberField("placement", placement);
+        json.writeStringField("track_id", trackId);
+        json.writeStringField("title", title);
+        json.writeArrayFieldStart("artists");
+        for (String artist : artists) {
+            json.writeString(artist);
+        }
+        json.writeEndArray();
+        json.writeStringField("image_url", imageUrl);
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,503 @@
+package com.top50.service;
+
+import com.top50.config.Bulkheads;
+import com.top50.config.ReadWriteRoutingDataSource;
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+import com.top50.entity.Playlist;
+import com.top50.entity.Track;
+import com.top50.entity.User;
+import com.top50.exception.UserNotFoundException;
+import com.top50.exception.WeekNotFoundException;
+import com.top50.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional in-memory read model answering all chart read endpoints without touching the database.
+ *
+ * Chart data is stored column-wise per user: tracks are referenced by their integer surrogate key
+ * (which doubles as the index into the shared track dictionary), weeks by per-user ordinals and
+ * positions are stored as unsigned bytes, so a year of weekly top 50 charts takes a few kilobytes
+ * per user. The whole model lives in an immutable {@link Snapshot}; imports and deletes build a
+ * new snapshot for the affected user and swap it in with a single volatile write, so readers never
+ * block and always see a consistent view.
+ *
+ * The "memory" {@link ChartDataSource}, selected with {@code chart.datasource=memory}. Until the
+ * first snapshot has been loaded, reads keep going to {@link DatabaseChartService}. If loading or a
+ * refresh fails, the previous snapshot keeps serving and the work is retried every
+ * chart.index.retry-delay.
+ */
+@Component
+@Profile("!files")
+@ConditionalOnProperty(name = "chart.datasource", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class ChartIndex implements ChartDataSource {
+    private final UserRepository userRepository;
+    private final PlaylistRepository playlistRepository;
+    private final ChartEntryRepository chartEntryRepository;
+    private final TrackRepository trackRepository;
+    private final WeekService weekService;
+    private final DatabaseChartService databaseChartService;
+    private final Bulkheads bulkheads;
+
+    private static final int MAX_POSITION = 255; // Positions are stored as unsigned bytes
+
+    private volatile Snapshot snapshot;
+    private volatile boolean loadFailed;
+
+    // Users whose refresh failed, retried by retryFailed()
+    private final Set<String> staleUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether reads should be answered from the index
+     */
+    public boolean isServing() {
+        return snapshot != null;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.nanoTime();
+        try {
+            Snapshot next = ReadWriteRoutingDataSource.onPrimary(() -> {
+                Snapshot loaded = Snapshot.EMPTY;
+                for (User user : userRepository.findAll()) {
+                    if (user.getDeletedAt() == null) {
+                        loaded = withUser(loaded, user);
+                    }
+                }
+                return loaded.withWeeks(loadWeekIsos());
+            });
+            snapshot = next;
+            loadFailed = false;
+            log.info("Chart index loaded: {} users, {} tracks in {} ms",
+                next.charts.size(), next.tracks.length, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            loadFailed = true;
+            log.error("Failed to load chart index, reads will use the database until a retry succeeds", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_INDEX)
+    public synchronized void onChartDataChanged(ChartDataChangedEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+
+        try {
+            refresh(event.username());
+            log.debug("Chart index refreshed for user: {}, week: {}", event.username(), event.week());
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the user is refreshed again by retryFailed()
+            staleUsers.add(event.username());
+            log.error("Failed to refresh chart index for user: {}, will retry", event.username(), e);
+        }
+    }
+
+    /**
+     * Retry a failed initial load or failed per-user refreshes, as "background" bulkhead work
+     */
+    @Scheduled(fixedDelayString = "${chart.index.retry-delay:PT30S}")
+    public synchronized void retryFailed() {
+        if (!loadFailed && staleUsers.isEmpty()) {
+            return;
+        }
+        try (Bulkheads.Permit permit = bulkheads.acquireWhenFree("background")) {
+            retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void retry() {
+        if (loadFailed) {
+            load();
+            if (!loadFailed) {
+                staleUsers.clear();
+            }
+            return;
+        }
+        for (String username : List.copyOf(staleUsers)) {
+            try {
+                refresh(username);
+                staleUsers.remove(username);
+                log.info("Chart index refreshed for user: {} after an earlier failure", username);
+            } catch (Exception e) {
+                log.warn("Retry of chart index refresh failed for user: {}: {}", username, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild one user's chart after a change, read from the primary so a lagging replica cannot
+     * hand back the data from before it
+     */
+    private void refresh(String username) {
+        Snapshot current = snapshot;
+        snapshot = ReadWriteRoutingDataSource.onPrimary(() -> {
+            Optional<User> user = userRepository.findByUsernameAndDeletedAtIsNull(username);
+            Snapshot next = user.isPresent()
+                ? withUser(current, user.get())
+                : current.withoutUser(normalizeUser(username));
+            return next.withWeeks(loadWeekIsos());
+        });
+    }
+
+    @Override
+    public List<String> getAllWeeks(String username) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return databaseChartService.getAllWeeks(username);
+        }
+        UserChart chart = s.charts.get(normalizeUser(username));
+        return chart == null ? Collections.emptyList() : chart.weeksDescending;
+    }
+
+    @Override
+    public List<ChartEntryDto> getChartByWeek(String weekIso, String username) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return databaseChartService.getChartByWeek(weekIso, username);
+        }
+        UserChart chart = s.chart(username);
+        if (chart == UserChart.NO_PLAYLIST) {
+            return Collections.emptyList();
+        }
+
+        int week = s.weekOrdinal(chart, weekIso);
+        if (week < 0) {
+            return Collections.emptyList();
+        }
+
+        int from = chart.weekOffsets[week];
+        int to = chart.weekOffsets[week + 1];
+        List<ChartEntryDto> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int track = chart.entryTracks[i];
+            int previous = week > 0 ? chart.positionOf(week - 1, track) : 0;
+            result.add(new ChartEntryDto(
+                weekIso,
+                chart.position(i),
+                s.tracks[track].dto,
+                previous > 0 ? previous : null));
+        }
+        return result;
+    }
+
+    @Override
+    public List<ChartEntryDto> getDroppedTracks(String weekIso, String username) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return databaseChartService.getDroppedTracks(weekIso, username);
+        }
+        UserChart chart = s.chart(username);
+        if (chart == UserChart.NO_PLAYLIST) {
+            return Collections.emptyList();
+        }
+
+        int week = s.weekOrdinal(chart, weekIso);
+        if (week <= 0) {
+            return Collections.emptyList();
+        }
+
+        int currentFrom = chart.weekOffsets[week];
+        int currentTo = chart.weekOffsets[week + 1];
+        String previousWeekIso = chart.weeks[week - 1];
+
+        List<ChartEntryDto> result = new ArrayList<>();
+        for (int i = chart.weekOffsets[week - 1]; i < currentFrom; i++) {
+            TrackEntry previous = s.tracks[chart.entryTracks[i]];
+            if (!isStillCharting(s, chart, currentFrom, currentTo, chart.entryTracks[i], previous)) {
+                result.add(new ChartEntryDto(previousWeekIso, chart.position(i), previous.dto, null));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TrackHistoryDto getTrackHistory(String trackId, String username) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return databaseChartService.getTrackHistory(trackId, username);
+        }
+        UserChart chart = s.chart(username);
+
+        Integer trackKey = s.trackKeysBySpotifyId.get(trackId);
+        if (trackKey == null) {
+            throw new RuntimeException("Track not found: " + trackId);
+        }
+        int track = trackKey;
+        if (chart == UserChart.NO_PLAYLIST) {
+            throw new RuntimeException("No playlist found for user: " + username);
+        }
+
+        List<TrackHistoryDto.PositionPoint> points = new ArrayList<>();
+        int week = 0;
+        for (int i = 0; i < chart.entryTracks.length; i++) {
+            while (i >= chart.weekOffsets[week + 1]) {
+                week++;
+            }
+            if (chart.entryTracks[i] == track) {
+                points.add(new TrackHistoryDto.PositionPoint(chart.weeks[week], chart.position(i)));
+            }
+        }
+        return new TrackHistoryDto(s.tracks[track].dto, points);
+    }
+
+    @Override
+    public List<TrackDto> getAllTracks(String username) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return databaseChartService.getAllTracks(username);
+        }
+        UserChart chart = s.chart(username);
+        List<TrackDto> result = new ArrayList<>(chart.distinctTracks.length);
+        for (int track : chart.distinctTracks) {
+            result.add(s.tracks[track].dto);
+        }
+        return result;
+    }
+
+    /**
+     * Same rule as {@link DatabaseChartService#getDroppedTracks}: a track has not dropped if it, or
+     * another version with the same title and at least one common artist, is in the current week.
+     */
+    private static boolean isStillCharting(Snapshot s, UserChart chart, int currentFrom, int currentTo,
+                                           int track, TrackEntry previous) {
+        for (int j = currentFrom; j < currentTo; j++) {
+            int currentTrack = chart.entryTracks[j];
+            if (currentTrack == track) {
+                return true;
+            }
+            TrackEntry current = s.tracks[currentTrack];
+            if (current.normalizedTitle.equals(previous.normalizedTitle)
+                    && !Collections.disjoint(current.normalizedArtists, previous.normalizedArtists)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Snapshot withUser(Snapshot base, User user) {
+        List<Playlist> playlists = playlistRepository.findByUserAndDeletedAtIsNull(user);
+        if (playlists.isEmpty()) {
+            return base.withUser(normalizeUser(user.getUsername()), UserChart.NO_PLAYLIST, base.tracks, base.trackKeysBySpotifyId);
+        }
+
+        // Same playlist choice as DatabaseChartService
+        List<Object[]> rows = chartEntryRepository.findChartRowsByPlaylist(playlists.get(0));
+
+        // Refresh the dictionary entries of every track in this chart (picks up new image URLs)
+        Set<Integer> trackKeys = new HashSet<>();
+        for (Object[] row : rows) {
+            trackKeys.add((Integer) row[2]);
+        }
+        TrackEntry[] tracks = base.tracks;
+        Map<String, Integer> trackKeysBySpotifyId = base.trackKeysBySpotifyId;
+        if (!trackKeys.isEmpty()) {
+            List<TrackEntry> loaded = loadTracks(trackKeys);
+            int maxKey = Collections.max(trackKeys);
+            tracks = Arrays.copyOf(base.tracks, Math.max(base.tracks.length, maxKey + 1));
+            trackKeysBySpotifyId = new HashMap<>(base.trackKeysBySpotifyId);
+            for (TrackEntry entry : loaded) {
+                tracks[entry.key] = entry;
+                trackKeysBySpotifyId.put(entry.dto.getId(), entry.key);
+            }
+        }
+
+        UserChart chart = UserChart.build(rows);
+        return base.withUser(normalizeUser(user.getUsername()), chart, tracks, trackKeysBySpotifyId);
+    }
+
+    private List<TrackEntry> loadTracks(Set<Integer> trackKeys) {
+        List<TrackEntry> entries = new ArrayList<>(trackKeys.size());
+        for (Track track : trackRepository.findAllById(trackKeys)) {
+            TrackDto dto = new TrackDto(track.getSpotifyId(), track.getTitle(), track.getArtistNameList(), track.getImageUrl());
+            entries.add(new TrackEntry(track.getId(), dto));
+        }
+        return entries;
+    }
+
+    private Set<String> loadWeekIsos() {
+        return new HashSet<>(weekService.getAllIsoFormats());
+    }
+
+    private static String normalizeUser(String username) {
+        return username.toLowerCase();
+    }
+
+    /**
+     * Immutable view of all users' charts plus the shared track dictionary, indexed by track key
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), new TrackEntry[0], Map.of(), Set.of());
+
+        final Map<String, UserChart> charts;
+        final TrackEntry[] tracks;
+        final Map<String, Integer> trackKeysBySpotifyId;
+        final Set<String> knownWeeks;
+
+        Snapshot(Map<String, UserChart> charts, TrackEntry[] tracks, Map<String, Integer> trackKeysBySpotifyId,
+                 Set<String> knownWeeks) {
+            this.charts = charts;
+            this.tracks = tracks;
+            this.trackKeysBySpotifyId = trackKeysBySpotifyId;
+            this.knownWeeks = knownWeeks;
+        }
+
+        Snapshot withUser(String username, UserChart chart, TrackEntry[] tracks, Map<String, Integer> trackKeysBySpotifyId) {
+            Map<String, UserChart> nextCharts = new HashMap<>(charts);
+            nextCharts.put(username, chart);
+            return new Snapshot(Collections.unmodifiableMap(nextCharts), tracks, trackKeysBySpotifyId, knownWeeks);
+        }
+
+        Snapshot withoutUser(String username) {
+            Map<String, UserChart> nextCharts = new HashMap<>(charts);
+            nextCharts.remove(username);
+            return new Snapshot(Collections.unmodifiableMap(nextCharts), tracks, trackKeysBySpotifyId, knownWeeks);
+        }
+
+        Snapshot withWeeks(Set<String> weeks) {
+            return new Snapshot(charts, tracks, trackKeysBySpotifyId, Collections.unmodifiableSet(weeks));
+        }
+
+        UserChart chart(String username) {
+            UserChart chart = charts.get(normalizeUser(username));
+            if (chart == null) {
+                throw new UserNotFoundException(username);
+            }
+            return chart;
+        }
+
+        /**
+         * Week ordinal within the chart, or -1 if the week exists but this chart has no entries for it
+         */
+        int weekOrdinal(UserChart chart, String weekIso) {
+            Integer week = chart.weekOrdinals.get(weekIso);
+            if (week != null) {
+                return week;
+            }
+            if (!knownWeeks.contains(weekIso)) {
+                throw new WeekNotFoundException(weekIso);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Column-wise chart data for one user's playlist. Entries are sorted by week, then position;
+     * entries of week {@code w} are at indexes {@code [weekOffsets[w], weekOffsets[w + 1])}.
+     */
+    private static final class UserChart {
+        static final UserChart NO_PLAYLIST = new UserChart(new String[0], new int[] {0}, new int[0], new byte[0]);
+
+        final String[] weeks;           // Week ordinal -> ISO week, oldest first
+        final int[] weekOffsets;
+        final int[] entryTracks;        // Entry -> track key
+        final byte[] entryPositions;    // Entry -> position, unsigned
+        final Map<String, Integer> weekOrdinals;
+        final List<String> weeksDescending;
+        final int[] distinctTracks;     // Track keys in order of first appearance
+
+        UserChart(String[] weeks, int[] weekOffsets, int[] entryTracks, byte[] entryPositions) {
+            this.weeks = weeks;
+            this.weekOffsets = weekOffsets;
+            this.entryTracks = entryTracks;
+            this.entryPositions = entryPositions;
+
+            Map<String, Integer> ordinals = new HashMap<>();
+            String[] descending = new String[weeks.length];
+            for (int i = 0; i < weeks.length; i++) {
+                ordinals.put(weeks[i], i);
+                descending[weeks.length - 1 - i] = weeks[i];
+            }
+            this.weekOrdinals = ordinals;
+            this.weeksDescending = List.of(descending);
+            this.distinctTracks = Arrays.stream(entryTracks).distinct().toArray();
+        }
+
+        static UserChart build(List<Object[]> rows) {
+            List<String> weeks = new ArrayList<>();
+            int[] weekOffsets = new int[rows.size() + 1];
+            int[] entryTracks = new int[rows.size()];
+            byte[] entryPositions = new byte[rows.size()];
+
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                String week = (String) row[0];
+                if (weeks.isEmpty() || !weeks.get(weeks.size() - 1).equals(week)) {
+                    weekOffsets[weeks.size()] = i;
+                    weeks.add(week);
+                }
+
+                int position = (Integer) row[1];
+                if (position < 1 || position > MAX_POSITION) {
+                    throw new IllegalStateException("Position out of range for chart index: " + position);
+                }
+                entryTracks[i] = (Integer) row[2];
+                entryPositions[i] = (byte) position;
+            }
+            weekOffsets[weeks.size()] = rows.size();
+
+            return new UserChart(weeks.toArray(new String[0]), Arrays.copyOf(weekOffsets, weeks.size() + 1),
+                entryTracks, entryPositions);
+        }
+
+        int position(int entry) {
+            return entryPositions[entry] & 0xFF;
+        }
+
+        /**
+         * Position of a track in the given week, or 0 if it did not chart that week
+         */
+        int positionOf(int week, int track) {
+            for (int i = weekOffsets[week]; i < weekOffsets[week + 1]; i++) {
+                if (entryTracks[i] == track) {
+                    return position(i);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Dictionary entry for a track, with the normalized fields used for dropped-track matching
+     */
+    private static final class TrackEntry {
+        final int key;
+        final TrackDto dto;
+        final String normalizedTitle;
+        final Set<String> normalizedArtists;
+
+        TrackEntry(int key, TrackDto dto) {
+            this.key = key;
+            this.dto = dto;
+            this.normalizedTitle = dto.getTitle() == null ? "" : dto.getTitle().toLowerCase().trim().replaceAll("\\s+", " ");
+            Set<String> artists = new HashSet<>();
+            for (String artist : dto.getArtists()) {
+                artists.add(artist.toLowerCase().trim());
+            }
+            this.normalizedArtists = artists;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.top50.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.top50.config.ReadWriteRoutingDataSource;
+import com.top50.dto.ChartEntryDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the week lists, charts and dropped tracks served by the active {@link ChartDataSource}.
+ *
+ * Entries are keyed by a per-user version that {@link ChartDataChangedEvent} increments, so a result
+ * computed while an import commits is stored under the old version and never served afterwards.
+ * The version is bumped after {@link ChartIndex} has refreshed, so nothing is cached from the old
+ * snapshot under the new version. Data sources that change without the event (the JSON files, see
+ * {@link ChartDataSource#publishesChanges()}) are not cached here.
+ * For chart.read-cache.primary-window after a change, results are loaded from the primary database
+ * rather than a read replica that may not have the change yet; entries also expire after
+ * chart.read-cache.ttl, which bounds how long anything read from a lagging replica is served.
+ * Filled on demand and by {@link ChartCacheWarmer}; cache statistics are exposed as cache.* meters
+ * named chartReads.
+ */
+@Service
+@Slf4j
+public class ChartReadCache {
+    private final ChartDataSources chartDataSources;
+    private final boolean enabled;
+    private final long primaryWindowNanos;
+    private final Cache<Key, Object> cache;
+
+    // Lowercased username -> version of its cached entries
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // Lowercased username -> System.nanoTime() of its last change
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    private record Key(String endpoint, String username, String week, long version) {
+    }
+
+    public ChartReadCache(ChartDataSources chartDataSources,
+                          MeterRegistry meterRegistry,
+                          @Value("${chart.read-cache.enabled:true}") boolean enabled,
+                          @Value("${chart.read-cache.max-size:5000}") long maxSize,
+                          @Value("${chart.read-cache.ttl:10m}") Duration ttl,
+                          @Value("${chart.read-cache.primary-window:15s}") Duration primaryWindow) {
+        this.chartDataSources = chartDataSources;
+        this.primaryWindowNanos = primaryWindow.toNanos();
+        this.enabled = enabled && chartDataSources.active().publishesChanges();
+        if (enabled && !this.enabled) {
+            log.info("Chart read cache disabled, the {} data source changes without events", chartDataSources.active().getName());
+        }
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chartReads");
+    }
+
+    public List<String> getAllWeeks(String username) {
+        return get("weeks", username, null, () -> chartDataSources.active().getAllWeeks(username));
+    }
+
+    public List<ChartEntryDto> getChartByWeek(String weekIso, String username) {
+        return get("chart", username, weekIso, () -> chartDataSources.active().getChartByWeek(weekIso, username));
+    }
+
+    public List<ChartEntryDto> getDroppedTracks(String weekIso, String username) {
+        return get("dropped", username, weekIso, () -> chartDataSources.active().getDroppedTracks(weekIso, username));
+    }
+
+    /**
+     * Number of cached results
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_READ_CACHES)
+    public void onChartDataChanged(ChartDataChangedEvent event) {
+        String user = event.username().toLowerCase(Locale.ROOT);
+        changedAt.put(user, System.nanoTime());
+        versions.computeIfAbsent(user, u -> new AtomicLong()).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.username().equalsIgnoreCase(user));
+        log.debug("Invalidated cached chart reads of {}", user);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String endpoint, String username, String week, Supplier<T> loader) {
+        String user = username.toLowerCase(Locale.ROOT);
+        Supplier<T> load = recentlyChanged(user) ? () -> ReadWriteRoutingDataSource.onPrimary(loader) : loader;
+        if (!enabled) {
+            return load.get();
+        }
+        AtomicLong userVersion = versions.get(user);
+        long version = userVersion != null ? userVersion.get() : 0;
+        return (T) cache.get(new Key(endpoint, username, week, version), key -> load.get());
+    }
+
+    private boolean recentlyChanged(String user) {
+        Long changed = changedAt.get(user);
+        return changed != null && System.nanoTime() - changed < primaryWindowNanos;
+    }
+}
@@ -0,0 +1,165 @@
+package com.top50.service;
+
+import com.top50.config.Bulkheads;
+import com.top50.dto.CompactionReportDto;
+import com.top50.repository.ArtistRepository;
+import com.top50.repository.ChartEntryRepository;
+import com.top50.repository.TrackArtistRepository;
+import com.top50.repository.TrackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+/**
+ * Background compaction of rows that are no longer needed:
+ * - chart entries soft-deleted longer ago than the retention period
+ * - tracks that no chart entry refers to, with their track_artists (track_statistics cascade)
+ * - artists without any track
+ *
+ * Each batch is a short transaction deleting at most {@code compaction.batch-size} rows, followed by
+ * a pause, so locks are held briefly and live imports are not starved. A batch holds a permit of the
+ * "background" bulkhead, waiting for one if the bulkhead is full. Orphan candidates are
+ * locked with SKIP LOCKED and must be older than the grace period, so rows an import is working
+ * on are left alone. An import that reuses a track or an artist locks its row and stamps updated_at
+ * first (see DataImportService#reuseTrack and #reuseArtist): either the stamp lands before the
+ * batch and the row is skipped, or the import waits for the batch and creates the row again.
+ * chart_entries has no foreign keys since it is partitioned, and artist_names is rewritten from
+ * track_artists, so this handshake is what keeps track and artist references valid.
+ */
+@Service
+@Profile("!files")
+@RequiredArgsConstructor
+@Slf4j
+public class CompactionService {
+    private final ChartEntryRepository chartEntryRepository;
+    private final TrackRepository trackRepository;
+    private final TrackArtistRepository trackArtistRepository;
+    private final ArtistRepository artistRepository;
+    private final EntityCacheService entityCacheService;
+    private final TrackSearchIndex trackSearchIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final Bulkheads bulkheads;
+
+    @Value("${compaction.enabled:false}")
+    private boolean enabled;
+
+    @Value("${compaction.retention:30d}")
+    private Duration retention;
+
+    @Value("${compaction.orphan-grace:1h}")
+    private Duration orphanGrace;
+
+    @Value("${compaction.batch-size:500}")
+    private int batchSize;
+
+    @Value("${compaction.batch-pause:200ms}")
+    private Duration batchPause;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile CompactionReportDto lastReport;
+
+    @Scheduled(cron = "${compaction.cron:0 30 3 * * *}")
+    public void scheduledCompaction() {
+        if (enabled) {
+            compact();
+        }
+    }
+
+    /**
+     * Run a compaction now, unless one is already running (then returns null)
+     */
+    public CompactionReportDto compact() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Compaction already running, skipping");
+            return null;
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.nanoTime();
+            List<CompactionReportDto.Batch> batches = new ArrayList<>();
+
+            LocalDateTime deletedBefore = startedAt.minus(retention);
+            purge("chart_entries", batches, () -> chartEntryRepository.purgeSoftDeleted(deletedBefore, batchSize));
+
+            LocalDateTime createdBefore = startedAt.minus(orphanGrace);
+            int[] trackArtistLinks = {0}; // Deleted in the same batches as their tracks
+            purge("tracks", batches, () -> {
+                List<Integer> trackIds = trackRepository.lockOrphanedTrackIds(createdBefore, batchSize);
+                if (trackIds.isEmpty()) {
+                    return 0;
+                }
+                trackArtistLinks[0] += trackArtistRepository.deleteByTrackIds(trackIds);
+                return trackRepository.deleteByIds(trackIds);
+            });
+            purge("artists", batches, () -> {
+                List<String> artistIds = artistRepository.lockOrphanedArtistIds(createdBefore, batchSize);
+                return artistIds.isEmpty() ? 0 : artistRepository.deleteByIds(artistIds);
+            });
+
+            Map<String, Integer> reclaimed = new LinkedHashMap<>();
+            for (CompactionReportDto.Batch batch : batches) {
+                reclaimed.merge(batch.getTable(), batch.getRows(), Integer::sum);
+            }
+            reclaimed.put("track_artists", trackArtistLinks[0]);
+            reclaimed.values().removeIf(rows -> rows == 0);
+
+            if (!reclaimed.isEmpty()) {
+                // Native deletes bypass Hibernate's cache invalidation and the search index
+                entityCacheService.evictAll();
+                if (reclaimed.containsKey("tracks")) {
+                    trackSearchIndex.rebuild();
+                }
+            }
+
+            CompactionReportDto report = new CompactionReportDto(
+                startedAt, (System.nanoTime() - start) / 1_000_000, reclaimed, batches);
+            lastReport = report;
+            log.info("Compaction finished in {} ms, rows reclaimed: {}", report.getDurationMillis(), reclaimed);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public CompactionReportDto getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Run batches of the delete until one removes fewer rows than the batch size
+     */
+    private void purge(String table, List<CompactionReportDto.Batch> batches, IntSupplier batch) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                Integer rows;
+                try (Bulkheads.Permit permit = bulkheads.acquireWhenFree("background")) {
+                    rows = transaction.execute(status -> batch.getAsInt());
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                batches.add(new CompactionReportDto.Batch(table, rows, millis));
+                log.debug("Compaction batch on {}: {} rows in {} ms", table, rows, millis);
+
+                if (rows < batchSize) {
+                    return;
+                }
+                Thread.sleep(batchPause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,24 +2,38 @@ package com.top50.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.config.Bulkheads;
+import com.top50.config.QueryBudget;
+import com.top50.config.ReadWriteRoutingDataSource;
 import com.top50.entity.*;
 import com.top50.exception.*;
 import com.top50.repository.*;
+import com.top50.util.ArtistNames;
+import com.top50.util.DataDirectories;
+import com.top50.util.SpotifyIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.Optional;
@@ -27,6 +41,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 @Service
+@Profile("!files")
 @RequiredArgsConstructor
 @Slf4j
 @Order(1)
@@ -39,17 +54,40 @@ public class DataImportService implements CommandLineRunner {
     private final TrackArtistRepository trackArtistRepository;
     private final WeekService weekService;
     private final ChartEntryRepository chartEntryRepository;
+    private final TrackSearchIndex trackSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final Bulkheads bulkheads;
     
-    @Value("${data.directory:../data}")
+    private Counter importedEntries;
+    private Counter failedEntries;
+    private Counter artistLinkConflicts;
+    
+    @PostConstruct
+    void registerMetrics() {
+        importedEntries = Counter.builder("import.entries").tag("result", "success")
+            .description("Chart entries imported").register(meterRegistry);
+        failedEntries = Counter.builder("import.entries").tag("result", "failure")
+            .description("Chart entries imported").register(meterRegistry);
+        artistLinkConflicts = Counter.builder("import.artist.link.conflicts")
+            .description("Track-artist links that already existed (duplicate key or already in session)").register(meterRegistry);
+    }
+    
+    @Value("${data.directory:}")
     private String dataDirectory;
     
+    // Whether to import data.directory at startup: import.data (system property, IMPORT_DATA or a profile)
+    @Value("${import.data:auto}")
+    private String importFlag;
+    
+    @Value("${data.import.async:false}")
+    private boolean importAsync;
+    
     private static final Pattern WEEK_PATTERN = Pattern.compile("(\\d{4}-W\\d{2})\\.json");
     
     @Override
     public void run(String... args) {
-        // Check if import should run (system property or environment variable)
-        String importFlag = System.getProperty("import.data", System.getenv("IMPORT_DATA"));
-        
         // Check if database is empty (no chart entries = no data imported)
         boolean isDatabaseEmpty = chartEntryRepository.count() == 0;
         
@@ -69,34 +107,82 @@ public class DataImportService implements CommandLineRunner {
             } else {
                 log.info("Data import skipped. Database already contains data.");
             }
+            eventPublisher.publishEvent(new StartupImportFinishedEvent());
             return;
         }
         
         if (isDatabaseEmpty) {
-            log.info("Database is empty. Starting automatic data import from: {}", dataDirectory);
+            log.info("Database is empty. Starting automatic data import from: {}", getDataDirectory());
         } else {
-            log.info("Starting data import from: {} (forced via IMPORT_DATA=true)", dataDirectory);
+            log.info("Starting data import from: {} (forced via IMPORT_DATA=true)", getDataDirectory());
         }
         
+        if (importAsync) {
+            // Off the startup path: the application becomes ready while the import runs
+            Thread importThread = new Thread(this::importDataDirectoryInBackground, "data-import");
+            importThread.start();
+        } else {
+            importDataDirectory();
+            eventPublisher.publishEvent(new StartupImportFinishedEvent());
+        }
+    }
+    
+    /**
+     * The import thread serves alongside requests, so it holds a "background" bulkhead permit. The
+     * permit is released before StartupImportFinishedEvent: its listener, the cache warmer, runs on
+     * this thread and takes "background" permits of its own.
+     */
+    private void importDataDirectoryInBackground() {
+        try (Bulkheads.Permit permit = bulkheads.acquireWhenFree("background")) {
+            importDataDirectory();
+            
+            // Indexes and caches built at startup did not see the imported data yet
+            ReadWriteRoutingDataSource.onPrimary(trackSearchIndex::rebuild);
+            eventPublisher.publishEvent(new ChartDataChangedEvent("walter", null));
+            eventPublisher.publishEvent(new ChartDataChangedEvent("signe", null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Data import interrupted before it started");
+        }
+        eventPublisher.publishEvent(new StartupImportFinishedEvent());
+    }
+    
+    private void importDataDirectory() {
+        long start = System.nanoTime();
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             Path dataPath = getDataDirectory();
             if (!Files.exists(dataPath)) {
                 log.warn("Data directory not found: {}", dataPath);
-                return;
+            } else {
+                // Import Walter and Signe; lookups outside the write transactions must see what was
+                // just written, so none of them go to a read replica
+                ReadWriteRoutingDataSource.onPrimary(() -> {
+                    importUserData("Walter", dataPath.resolve("Walter"));
+                    importUserData("Signe", dataPath.resolve("Signe"));
+                });
+                
+                log.info("Data import completed successfully in {} ms", (System.nanoTime() - start) / 1_000_000);
             }
-            
-            // Import Walter and Signe
-            importUserData("Walter", dataPath.resolve("Walter"));
-            importUserData("Signe", dataPath.resolve("Signe"));
-            
-            log.info("Data import completed successfully!");
         } catch (Exception e) {
             log.error("Error during data import", e);
         }
+        sample.stop(Timer.builder("import.startup")
+            .description("Time to import the data directory at startup")
+            .register(meterRegistry));
     }
     
+    /**
+     * Import one week posted through the API. Runs on the primary: the entries are written in
+     * separate transactions, and the lookups between them must not read from a lagging replica.
+     */
     public void importJsonData(com.top50.dto.JsonImportRequest request, String username) {
+        ReadWriteRoutingDataSource.onPrimary(() -> importJsonDataOnPrimary(request, username));
+    }
+    
+    private void importJsonDataOnPrimary(com.top50.dto.JsonImportRequest request, String username) {
         log.info("Importing JSON data for user: {}, week: {}", username, request.getWeek());
+        Timer.Sample sample = Timer.start(meterRegistry);
         
         // Get or create user, playlist, and week in a separate transaction
         User user = getOrCreateUser(username);
@@ -109,11 +195,15 @@ public class DataImportService implements CommandLineRunner {
         
         // Import entries - each entry in its own transaction to isolate failures
         int successCount = 0;
+        List<com.top50.dto.JsonImportRequest.ChartEntry> importedEntryDtos = new ArrayList<>();
         for (com.top50.dto.JsonImportRequest.ChartEntry entry : request.getEntries()) {
             try {
                 importChartEntryFromDto(entry, playlist, week);
+                importedEntryDtos.add(entry);
                 successCount++;
+                importedEntries.increment();
             } catch (Exception e) {
+                failedEntries.increment();
                 log.error("Failed to import chart entry for track {} in week {}: {}", 
                     entry.getTrackId(), request.getWeek(), e.getMessage());
                 // Continue with next entry
@@ -122,6 +212,22 @@ public class DataImportService implements CommandLineRunner {
         
         log.info("Successfully imported {} entries for week {} (attempted {})", 
             successCount, request.getWeek(), request.getEntries().size());
+        
+        // Only entries that were persisted, so search never returns a track the charts don't have
+        trackSearchIndex.index(username, importedEntryDtos);
+        eventPublisher.publishEvent(new ChartDataChangedEvent(username, request.getWeek(), successCount));
+        sample.stop(weekTimer("api"));
+    }
+    
+    /**
+     * Timer for importing one week, tagged with where the week came from (api or file)
+     */
+    private Timer weekTimer(String source) {
+        return Timer.builder("import.week")
+            .description("Time to import one week of chart entries")
+            .tag("source", source)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
     }
     
     @Transactional
@@ -177,15 +283,17 @@ public class DataImportService implements CommandLineRunner {
     public void importChartEntryFromDto(com.top50.dto.JsonImportRequest.ChartEntry entryDto, Playlist playlist, Week week) {
         try {
             String trackId = entryDto.getTrackId();
+            if (!SpotifyIds.isValid(trackId)) {
+                throw new IllegalArgumentException("Invalid Spotify track id: '" + trackId + "'");
+            }
             int position = entryDto.getPlacement();
             
-            // Get or create track
-            Track track = trackRepository.findById(trackId)
+            // Get or create track (spotify_url is derived from the id, not stored)
+            Track track = reuseTrack(trackId)
                 .orElseGet(() -> {
                     Track newTrack = new Track();
-                    newTrack.setId(trackId);
+                    newTrack.setSpotifyId(trackId);
                     newTrack.setTitle(entryDto.getTitle());
-                    newTrack.setSpotifyUrl(entryDto.getSpotifyUrl());
                     if (entryDto.getImageUrl() != null) {
                         newTrack.setImageUrl(entryDto.getImageUrl());
                     }
@@ -232,6 +340,7 @@ public class DataImportService implements CommandLineRunner {
                     chartEntry.setPlaylist(playlist);
                     chartEntry.setTrack(track);
                     chartEntry.setWeek(week);
+                    chartEntry.setWeekYear(week.getWeekYear());
                     chartEntry.setCreatedAt(LocalDateTime.now());
                 }
             }
@@ -310,6 +419,7 @@ public class DataImportService implements CommandLineRunner {
     }
     
     public void importWeekFile(Path filePath, Playlist playlist) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String fileName = filePath.getFileName().toString();
             java.util.regex.Matcher matcher = WEEK_PATTERN.matcher(fileName);
@@ -336,7 +446,9 @@ public class DataImportService implements CommandLineRunner {
                 try {
                     importChartEntry(entry, playlist, week);
                     successCount++;
+                    importedEntries.increment();
                 } catch (Exception e) {
+                    failedEntries.increment();
                     log.warn("Failed to import entry: {}", e.getMessage());
                 }
             }
@@ -344,6 +456,8 @@ public class DataImportService implements CommandLineRunner {
             log.info("Imported {} entries for week {} (attempted {})", successCount, weekIso, entries.size());
         } catch (IOException e) {
             log.error("Error importing week file: {}", filePath, e);
+        } finally {
+            sample.stop(weekTimer("file"));
         }
     }
     
@@ -352,16 +466,18 @@ public class DataImportService implements CommandLineRunner {
         String trackId = null;
         try {
             trackId = entry.get("track_id").asText();
+            if (!SpotifyIds.isValid(trackId)) {
+                throw new IllegalArgumentException("Invalid Spotify track id: '" + trackId + "'");
+            }
             final String finalTrackId = trackId; // Final copy for lambda
             int position = entry.get("placement").asInt();
             
-            // Get or create track
-            Track track = trackRepository.findById(finalTrackId)
+            // Get or create track (spotify_url is derived from the id, not stored)
+            Track track = reuseTrack(finalTrackId)
                 .orElseGet(() -> {
                     Track newTrack = new Track();
-                    newTrack.setId(finalTrackId);
+                    newTrack.setSpotifyId(finalTrackId);
                     newTrack.setTitle(entry.get("title").asText());
-                    newTrack.setSpotifyUrl(entry.get("spotify_url").asText());
                     if (entry.has("image_url")) {
                         newTrack.setImageUrl(entry.get("image_url").asText());
                     }
@@ -390,6 +506,7 @@ public class DataImportService implements CommandLineRunner {
                     newEntry.setPlaylist(playlist);
                     newEntry.setTrack(track);
                     newEntry.setWeek(week);
+                    newEntry.setWeekYear(week.getWeekYear());
                     newEntry.setCreatedAt(LocalDateTime.now());
                     return newEntry;
                 });
@@ -425,6 +542,32 @@ public class DataImportService implements CommandLineRunner {
         }
     }
     
+    /**
+     * Existing track for a Spotify id, locked and stamped as reused so compaction does not remove it
+     * before its chart entry is written. Empty if there is none, or compaction removed it before it
+     * was locked. The stamp is an entity update, so only this track's cache entry changes.
+     */
+    private Optional<Track> reuseTrack(String spotifyId) {
+        return trackRepository.findBySpotifyId(spotifyId)
+            .flatMap(track -> new TransactionTemplate(transactionManager).execute(status ->
+                trackRepository.lockById(track.getId()).map(locked -> {
+                    locked.setUpdatedAt(LocalDateTime.now());
+                    return locked;
+                })));
+    }
+    
+    /**
+     * The same handshake for an artist about to be linked to a track: without it, compaction could
+     * remove the artist before the track_artists row referring to it is inserted
+     */
+    private Optional<Artist> reuseArtist(Artist artist) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+            artistRepository.lockById(artist.getId()).map(locked -> {
+                locked.setUpdatedAt(LocalDateTime.now());
+                return locked;
+            }));
+    }
+    
     @Transactional
     public Artist getOrCreateArtist(String artistName) {
         if (artistName == null || artistName.trim().isEmpty()) {
@@ -433,8 +576,9 @@ public class DataImportService implements CommandLineRunner {
         
         String normalizedName = artistName.toLowerCase().trim();
         
-        // Try to find existing artist first
-        Optional<Artist> existing = artistRepository.findByNormalizedName(normalizedName);
+        // Try to find existing artist first; empty as well if compaction removed it before it was locked
+        Optional<Artist> existing = artistRepository.findByNormalizedName(normalizedName)
+            .flatMap(this::reuseArtist);
         if (existing.isPresent()) {
             return existing.get();
         }
@@ -474,97 +618,199 @@ public class DataImportService implements CommandLineRunner {
             if (existing.isEmpty()) {
                 // Don't check track.getArtists() collection as it may be lazy-loaded and cause session conflicts
                 // Just create and save the TrackArtist directly
-                TrackArtist trackArtist = new TrackArtist();
-                trackArtist.setTrack(track);
-                trackArtist.setArtist(artist);
-                trackArtist.setPosition(position);
-                trackArtistRepository.saveAndFlush(trackArtist);
+                // Callers run outside a transaction (self-invocation), so re-attach both sides here;
+                // persisting the link with detached ids fails with "detached entity passed to persist"
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    TrackArtist trackArtist = new TrackArtist();
+                    trackArtist.setTrack(trackRepository.getReferenceById(track.getId()));
+                    trackArtist.setArtist(artistRepository.getReferenceById(artist.getId()));
+                    trackArtist.setPosition(position);
+                    trackArtistRepository.saveAndFlush(trackArtist);
+                });
                 // Don't add to track.getArtists() collection - let Hibernate manage the bidirectional relationship
+                refreshArtistNames(track);
             }
         } catch (DataIntegrityViolationException e) {
             // If duplicate key (race condition), ignore it - this won't rollback the transaction due to noRollbackFor
+            artistLinkConflicts.increment();
             log.debug("TrackArtist link already exists for track {} and artist {} at position {}", 
-                track != null ? track.getId() : "null", 
+                track != null ? track.getSpotifyId() : "null", 
                 artist != null ? artist.getName() : "null", 
                 position);
         } catch (org.hibernate.NonUniqueObjectException e) {
             // If object already in session, ignore it
+            artistLinkConflicts.increment();
             log.debug("TrackArtist already in session for track {} and artist {} at position {}", 
-                track != null ? track.getId() : "null", 
+                track != null ? track.getSpotifyId() : "null", 
                 artist != null ? artist.getName() : "null", 
                 position);
         } catch (Exception e) {
-            log.warn("Failed to link artist {} to track {}: {}", artist != null ? artist.getName() : "null", track != null ? track.getId() : "null", e.getMessage());
+            log.warn("Failed to link artist {} to track {}: {}", artist != null ? artist.getName() : "null", track != null ? track.getSpotifyId() : "null", e.getMessage());
             // Don't throw - continue with import
         }
     }
     
+    /**
+     * Rewrite tracks.artist_names from the track's links, which stay the source of truth
+     */
+    private void refreshArtistNames(Track track) {
+        List<String> names = new ArrayList<>();
+        for (Object[] row : trackArtistRepository.findTrackArtistNamesByTrackIds(List.of(track.getId()))) {
+            names.add((String) row[1]);
+        }
+        String artistNames = ArtistNames.join(names);
+        if (!Objects.equals(artistNames, track.getArtistNames())) {
+            track.setArtistNames(artistNames);
+            trackRepository.save(track);
+        }
+    }
+    
+    /**
+     * Soft delete all entries of a week with a single UPDATE
+     *
+     * @return number of entries deleted
+     */
     @Transactional
-    public void deleteChartEntriesForWeek(String weekIso, String username) {
-        log.info("Deleting chart entries for user: {}, week: {}", username, weekIso);
-        
-        User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
-            .orElseThrow(() -> new UserNotFoundException(username));
+    @QueryBudget(3)
+    public int deleteChartEntriesForWeek(String weekIso, String username) {
+        Playlist playlist = findPlaylist(username);
+        Week week = weekService.findByIsoFormat(weekIso)
+            .orElseThrow(() -> new WeekNotFoundException(weekIso));
         
-        List<Playlist> playlists = playlistRepository.findByUserAndDeletedAtIsNull(user);
-        if (playlists.isEmpty()) {
-            throw new PlaylistNotFoundException(username);
+        int deleted;
+        try {
+            deleted = chartEntryRepository.softDeleteByPlaylistAndWeek(playlist, week, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to delete chart entries for user: {}, week: {}", username, weekIso, e);
+            throw new DataDeletionException("Failed to delete chart entries: " + e.getMessage(), e);
         }
         
-        Playlist playlist = playlists.get(0);
+        log.info("Soft deleted {} chart entries for user: {}, week: {}", deleted, username, weekIso);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, weekIso, 0));
+        }
+        return deleted;
+    }
+    
+    /**
+     * Undo the soft delete of a week's entries
+     *
+     * @return number of entries restored
+     */
+    @Transactional
+    @QueryBudget(3)
+    public int restoreChartEntriesForWeek(String weekIso, String username) {
+        Playlist playlist = findPlaylist(username);
         Week week = weekService.findByIsoFormat(weekIso)
             .orElseThrow(() -> new WeekNotFoundException(weekIso));
         
-        // Use soft delete for consistency with deletedAt pattern
-        // Get only non-deleted entries
-        List<ChartEntry> entries = chartEntryRepository.findByPlaylistAndWeekNotDeleted(playlist, week);
+        int restored = chartEntryRepository.restoreByPlaylistAndWeek(playlist, week);
+        log.info("Restored {} chart entries for user: {}, week: {}", restored, username, weekIso);
+        if (restored > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, weekIso, restored));
+        }
+        return restored;
+    }
+    
+    /**
+     * Soft delete all entries from week {@code fromIso} through week {@code toIso}, inclusive
+     *
+     * @return number of entries deleted
+     */
+    @Transactional
+    @QueryBudget(3)
+    public int deleteChartEntriesForWeekRange(String fromIso, String toIso, String username) {
+        Playlist playlist = findPlaylist(username);
+        LocalDate from = WeekService.startDate(fromIso);
+        LocalDate to = checkRange(from, WeekService.startDate(toIso));
         
-        if (entries.isEmpty()) {
-            log.info("No chart entries found for user: {}, week: {}", username, weekIso);
-            return;
+        int deleted;
+        try {
+            deleted = chartEntryRepository.softDeleteByPlaylistAndWeekRange(playlist, from, to, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to delete chart entries for user: {}, weeks: {} - {}", username, fromIso, toIso, e);
+            throw new DataDeletionException("Failed to delete chart entries: " + e.getMessage(), e);
         }
         
-        log.info("Soft deleting {} chart entries for user: {}, week: {}", entries.size(), username, weekIso);
+        log.info("Soft deleted {} chart entries for user: {}, weeks: {} - {}", deleted, username, fromIso, toIso);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, null));
+        }
+        return deleted;
+    }
+    
+    @Transactional
+    @QueryBudget(3)
+    public int restoreChartEntriesForWeekRange(String fromIso, String toIso, String username) {
+        Playlist playlist = findPlaylist(username);
+        LocalDate from = WeekService.startDate(fromIso);
+        LocalDate to = checkRange(from, WeekService.startDate(toIso));
+        
+        int restored = chartEntryRepository.restoreByPlaylistAndWeekRange(playlist, from, to);
+        log.info("Restored {} chart entries for user: {}, weeks: {} - {}", restored, username, fromIso, toIso);
+        if (restored > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, null));
+        }
+        return restored;
+    }
+    
+    /**
+     * Soft delete every entry of the user's playlist
+     *
+     * @return number of entries deleted
+     */
+    @Transactional
+    @QueryBudget(3)
+    public int deleteChartEntriesForPlaylist(String username) {
+        Playlist playlist = findPlaylist(username);
         
+        int deleted;
         try {
-            LocalDateTime now = LocalDateTime.now();
-            entries.forEach(entry -> entry.setDeletedAt(now));
-            chartEntryRepository.saveAll(entries);
-            chartEntryRepository.flush();
-            
-            // Verify deletion
-            long remainingCount = chartEntryRepository.findByPlaylistAndWeekNotDeleted(playlist, week).size();
-            
-            if (remainingCount > 0) {
-                log.warn("Not all entries were deleted. Expected 0, found {} remaining", remainingCount);
-                throw new DataDeletionException("Failed to delete all chart entries. " + remainingCount + " entries remain.");
-            }
-            
-            log.info("Successfully soft deleted {} chart entries for user: {}, week: {}", 
-                    entries.size(), username, weekIso);
+            deleted = chartEntryRepository.softDeleteByPlaylist(playlist, LocalDateTime.now());
         } catch (Exception e) {
-            log.error("Failed to delete chart entries for user: {}, week: {}", username, weekIso, e);
-            if (e instanceof DataDeletionException) {
-                throw e;
-            }
+            log.error("Failed to delete chart entries for user: {}", username, e);
             throw new DataDeletionException("Failed to delete chart entries: " + e.getMessage(), e);
         }
+        
+        log.info("Soft deleted {} chart entries for user: {}", deleted, username);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, null));
+        }
+        return deleted;
     }
     
-    private Path getDataDirectory() {
-        Path path = Paths.get(dataDirectory);
-        if (Files.exists(path) && Files.isDirectory(path)) {
-            return path.toAbsolutePath();
-        }
+    @Transactional
+    @QueryBudget(3)
+    public int restoreChartEntriesForPlaylist(String username) {
+        Playlist playlist = findPlaylist(username);
         
-        Path currentDir = Paths.get("").toAbsolutePath();
-        if (currentDir.getFileName().toString().equals("backend")) {
-            Path parentData = currentDir.getParent().resolve("data");
-            if (Files.exists(parentData) && Files.isDirectory(parentData)) {
-                return parentData;
-            }
+        int restored = chartEntryRepository.restoreByPlaylist(playlist);
+        log.info("Restored {} chart entries for user: {}", restored, username);
+        if (restored > 0) {
+            eventPublisher.publishEvent(new ChartDataChangedEvent(username, null));
         }
+        return restored;
+    }
+    
+    private Playlist findPlaylist(String username) {
+        User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
+            .orElseThrow(() -> new UserNotFoundException(username));
         
-        return path.toAbsolutePath();
+        List<Playlist> playlists = playlistRepository.findByUserAndDeletedAtIsNull(user);
+        if (playlists.isEmpty()) {
+            throw new PlaylistNotFoundException(username);
+        }
+        return playlists.get(0);
+    }
+    
+    private static LocalDate checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Week range is reversed: from must not be after to");
+        }
+        return to;
+    }
+    
+    private Path getDataDirectory() {
+        return DataDirectories.resolve(dataDirectory);
     }
 }
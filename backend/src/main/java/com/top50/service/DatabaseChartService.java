@@ -1,5 +1,6 @@
 package com.top50.service;
 
+import com.top50.config.QueryBudget;
 import com.top50.dto.ChartEntryDto;
 import com.top50.dto.TrackDto;
 import com.top50.dto.TrackHistoryDto;
@@ -8,6 +9,7 @@ import com.top50.exception.*;
 import com.top50.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,9 +17,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@Profile("!files")
 @RequiredArgsConstructor
 @Slf4j
-public class DatabaseChartService {
+public class DatabaseChartService implements ChartDataSource {
     private final ChartEntryRepository chartEntryRepository;
     private final PlaylistRepository playlistRepository;
     private final UserRepository userRepository;
@@ -25,6 +28,16 @@ public class DatabaseChartService {
     private final WeekRepository weekRepository;
     private final WeekService weekService;
     
+    // Candidate weeks checked per query when looking for the previous charted week
+    private static final int PREVIOUS_WEEK_WINDOW = 8;
+    
+    @Override
+    public String getName() {
+        return "database";
+    }
+    
+    @Override
+    @QueryBudget(3)
     public List<String> getAllWeeks(String username) {
         try {
             User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
@@ -54,7 +67,9 @@ public class DatabaseChartService {
         }
     }
     
+    @Override
     @Transactional(readOnly = true)
+    @QueryBudget(5)
     public List<ChartEntryDto> getChartByWeek(String weekIso, String username) {
         User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
             .orElseThrow(() -> new UserNotFoundException(username));
@@ -75,8 +90,8 @@ public class DatabaseChartService {
         Week previousWeek = findPreviousWeek(playlist, week);
         
         // Get all tracks from previous week for quick lookup
-        Set<String> previousWeekTrackIds = new HashSet<>();
-        Map<String, Integer> previousWeekPositions = new HashMap<>();
+        Set<Integer> previousWeekTrackIds = new HashSet<>();
+        Map<Integer, Integer> previousWeekPositions = new HashMap<>();
         if (previousWeek != null) {
             List<ChartEntry> previousEntries = chartEntryRepository.findByPlaylistAndWeekOrderByPosition(playlist, previousWeek);
             for (ChartEntry prevEntry : previousEntries) {
@@ -92,17 +107,12 @@ public class DatabaseChartService {
             
             TrackDto trackDto = new TrackDto();
             Track track = entry.getTrack();
-            trackDto.setId(track.getId());
+            trackDto.setId(track.getSpotifyId());
             trackDto.setTitle(track.getTitle());
-            trackDto.setSpotifyUrl(track.getSpotifyUrl());
             trackDto.setImageUrl(track.getImageUrl());
             
-            // Get artists
-            List<String> artistNames = track.getArtists().stream()
-                .sorted(Comparator.comparing(TrackArtist::getPosition))
-                .map(ta -> ta.getArtist().getName())
-                .collect(Collectors.toList());
-            trackDto.setArtists(artistNames);
+            // Artists come from the denormalized column, no join needed
+            trackDto.setArtists(track.getArtistNameList());
             
             dto.setTrack(trackDto);
             
@@ -117,12 +127,14 @@ public class DatabaseChartService {
         }).collect(Collectors.toList());
     }
     
+    @Override
     @Transactional(readOnly = true)
+    @QueryBudget(4)
     public TrackHistoryDto getTrackHistory(String trackId, String username) {
         User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
             .orElseThrow(() -> new UserNotFoundException(username));
         
-        Track track = trackRepository.findByIdAndDeletedAtIsNull(trackId)
+        Track track = trackRepository.findBySpotifyIdAndDeletedAtIsNull(trackId)
             .orElseThrow(() -> new RuntimeException("Track not found: " + trackId));
         
         List<Playlist> playlists = playlistRepository.findByUserAndDeletedAtIsNull(user);
@@ -149,7 +161,9 @@ public class DatabaseChartService {
         return history;
     }
     
+    @Override
     @Transactional(readOnly = true)
+    @QueryBudget(5)
     public List<ChartEntryDto> getDroppedTracks(String weekIso, String username) {
         User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
             .orElseThrow(() -> new UserNotFoundException(username));
@@ -178,7 +192,7 @@ public class DatabaseChartService {
         List<ChartEntry> currentEntries = chartEntryRepository.findByPlaylistAndWeekOrderByPosition(playlist, currentWeek);
         
         // Create a set of current track IDs for fast lookup
-        Set<String> currentTrackIds = currentEntries.stream()
+        Set<Integer> currentTrackIds = currentEntries.stream()
             .map(ce -> ce.getTrack().getId())
             .collect(Collectors.toSet());
         
@@ -195,7 +209,7 @@ public class DatabaseChartService {
         
         return previousEntries.stream()
             .filter(entry -> {
-                String trackId = entry.getTrack().getId();
+                Integer trackId = entry.getTrack().getId();
                 
                 // First check: exact track ID match (fast path)
                 if (currentTrackIds.contains(trackId)) {
@@ -216,7 +230,7 @@ public class DatabaseChartService {
                     if (hasCommonArtist) {
                         // Same song (different version) is still in current week, don't show as dropped
                         log.debug("Track '{}' (ID: {}) has a different version in current week, not showing as dropped", 
-                            entry.getTrack().getTitle(), trackId);
+                            entry.getTrack().getTitle(), entry.getTrack().getSpotifyId());
                         return false;
                     }
                 }
@@ -248,13 +262,14 @@ public class DatabaseChartService {
      * Get normalized artist names from a track
      */
     private Set<String> getArtistNames(Track track) {
-        return track.getArtists().stream()
-            .sorted(Comparator.comparing(TrackArtist::getPosition))
-            .map(ta -> ta.getArtist().getName().toLowerCase().trim())
+        return track.getArtistNameList().stream()
+            .map(name -> name.toLowerCase().trim())
             .collect(Collectors.toSet());
     }
     
+    @Override
     @Transactional(readOnly = true)
+    @QueryBudget(3)
     public List<TrackDto> getAllTracks(String username) {
         User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
             .orElseThrow(() -> new UserNotFoundException(username));
@@ -266,36 +281,19 @@ public class DatabaseChartService {
         
         Playlist playlist = playlists.get(0);
         
-        // Get all unique tracks from all weeks for this playlist
-        Set<String> trackIds = new HashSet<>();
-        List<Week> weeks = chartEntryRepository.findDistinctWeeksByPlaylist(playlist);
-        for (Week week : weeks) {
-            List<ChartEntry> entries = chartEntryRepository.findByPlaylistAndWeekOrderByPosition(playlist, week);
-            entries.forEach(entry -> trackIds.add(entry.getTrack().getId()));
-        }
-        
-        return trackIds.stream()
-            .map(trackId -> {
-                Track track = trackRepository.findByIdAndDeletedAtIsNull(trackId)
-                    .orElse(null);
-                return track != null ? convertToTrackDto(track) : null;
-            })
-            .filter(Objects::nonNull)
+        // All unique tracks from all weeks for this playlist, in one statement
+        return chartEntryRepository.findDistinctTracksByPlaylist(playlist).stream()
+            .map(this::convertToTrackDto)
             .collect(Collectors.toList());
     }
     
     private TrackDto convertToTrackDto(Track track) {
         TrackDto dto = new TrackDto();
-        dto.setId(track.getId());
+        dto.setId(track.getSpotifyId());
         dto.setTitle(track.getTitle());
-        dto.setSpotifyUrl(track.getSpotifyUrl());
         dto.setImageUrl(track.getImageUrl());
         
-        List<String> artistNames = track.getArtists().stream()
-            .sorted(Comparator.comparing(TrackArtist::getPosition))
-            .map(ta -> ta.getArtist().getName())
-            .collect(Collectors.toList());
-        dto.setArtists(artistNames);
+        dto.setArtists(track.getArtistNameList());
         
         return dto;
     }
@@ -309,13 +307,22 @@ public class DatabaseChartService {
      * @return The previous week, or null if no previous week exists
      */
     private Week findPreviousWeek(Playlist playlist, Week currentWeek) {
-        // Get all weeks sorted by startDate DESC (newest first)
-        List<Week> allWeeks = chartEntryRepository.findDistinctWeeksByPlaylist(playlist);
-        
-        // Find current week index and get the next one (which is the previous chronologically)
-        for (int i = 0; i < allWeeks.size(); i++) {
-            if (allWeeks.get(i).getId().equals(currentWeek.getId()) && i < allWeeks.size() - 1) {
-                return allWeeks.get(i + 1);
+        // Walk back through the in-memory calendar; each window of candidate weeks is checked with
+        // one index-only query, and the first window normally contains the directly previous week
+        List<Week> candidates = new ArrayList<>(PREVIOUS_WEEK_WINDOW);
+        Iterator<Week> earlier = weekService.getWeeksBefore(currentWeek).iterator();
+        while (earlier.hasNext()) {
+            candidates.clear();
+            while (earlier.hasNext() && candidates.size() < PREVIOUS_WEEK_WINDOW) {
+                candidates.add(earlier.next());
+            }
+            
+            Set<String> charted = new HashSet<>(chartEntryRepository.findChartedWeekIds(playlist,
+                candidates.stream().map(Week::getId).toList()));
+            for (Week candidate : candidates) {
+                if (charted.contains(candidate.getId())) {
+                    return candidate;
+                }
             }
         }
         return null;
@@ -0,0 +1,92 @@
+package com.top50.service;
+
+import com.top50.dto.CacheStatisticsDto;
+import com.top50.entity.Track;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Eviction and statistics for the Hibernate second-level cache.
+ *
+ * Entity writes through repositories keep the cache consistent on their own; this service covers
+ * what Hibernate cannot see (bulk and native statements) and drops cached artist collections of
+ * tracks after an import, when new track_artists links may have been written.
+ */
+@Service
+@Profile("!files")
+@RequiredArgsConstructor
+@Slf4j
+public class EntityCacheService {
+    private final EntityManagerFactory entityManagerFactory;
+    
+    private static final String TRACK_ARTISTS_ROLE = Track.class.getName() + ".artists";
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_ENTITY_CACHE)
+    public void onChartDataChanged(ChartDataChangedEvent event) {
+        evictTrackArtists();
+    }
+    
+    public void evictTrackArtists() {
+        sessionFactory().getCache().evictCollectionData(TRACK_ARTISTS_ROLE);
+    }
+    
+    /**
+     * Evict all entity, collection and query regions, e.g. after bulk or native statements
+     */
+    public void evictAll() {
+        log.debug("Evicting all second-level cache regions");
+        sessionFactory().getCache().evictAllRegions();
+    }
+    
+    /**
+     * Hit, miss and put counts per region; all zero unless hibernate.generate_statistics is on,
+     * which the diagnostics profile does
+     */
+    public CacheStatisticsDto getStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        
+        List<CacheStatisticsDto.RegionStatistics> regions = new ArrayList<>();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long reads = region.getHitCount() + region.getMissCount();
+            regions.add(new CacheStatisticsDto.RegionStatistics(
+                regionName,
+                region.getHitCount(),
+                region.getMissCount(),
+                region.getPutCount(),
+                region.getElementCountInMemory(),
+                reads > 0 ? (double) region.getHitCount() / reads : null));
+        }
+        
+        return new CacheStatisticsDto(
+            statistics.getSecondLevelCacheHitCount(),
+            statistics.getSecondLevelCacheMissCount(),
+            statistics.getSecondLevelCachePutCount(),
+            statistics.getQueryCacheHitCount(),
+            statistics.getQueryCacheMissCount(),
+            statistics.getQueryCachePutCount(),
+            regions);
+    }
+    
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
@@ -2,163 +2,169 @@ package com.top50.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.archive.ChartArchiveReader;
+import com.top50.archive.ChartArchiveWriter;
 import com.top50.dto.ChartEntryDto;
 import com.top50.dto.JsonImportRequest;
 import com.top50.dto.TrackDto;
 import com.top50.dto.TrackHistoryDto;
+import com.top50.util.DataDirectories;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Service for reading chart data directly from JSON files
+ *
+ * Parsed week files and per-user week listings are cached and revalidated against the file's
+ * size and last-modified time, so each file is parsed at most once per change.
+ *
+ * With data.archive.enabled, reads are served from a memory-mapped per-user chart archive
+ * ({@code <user>.chartarchive} in the data directory, see {@link ChartArchiveWriter}) while it is
+ * up to date with the JSON files. Stale archives are rebuilt at startup.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class JsonChartService {
+public class JsonChartService implements ChartDataSource {
     private final ObjectMapper objectMapper;
     
-    @Value("${data.directory:../data}")
+    @Value("${data.directory:}")
     private String dataDirectory;
     
     private static final Pattern WEEK_PATTERN = Pattern.compile("\\d{4}-W\\d{2}\\.json");
     
+    // Parsed week files by path and sorted week listings by user directory, validated against file attributes
+    private final Map<Path, ParsedWeek> weekCache = new ConcurrentHashMap<>();
+    private final Map<Path, WeekListing> weekListingCache = new ConcurrentHashMap<>();
+    
+    private static final String ARCHIVE_SUFFIX = ".chartarchive";
+    
+    @Value("${data.archive.enabled:false}")
+    private boolean archiveEnabled;
+    
+    // How long a successful freshness check of an archive against its week files is reused
+    @Value("${data.archive.check-interval:1s}")
+    private Duration archiveCheckInterval;
+    
+    private final Map<Path, OpenArchive> archiveCache = new ConcurrentHashMap<>();
+    private final Map<Path, Long> archiveFreshUntil = new ConcurrentHashMap<>();
+    
     private Path getDataDirectory() {
-        Path path = Paths.get(dataDirectory);
-        if (Files.exists(path) && Files.isDirectory(path)) {
-            return path.toAbsolutePath();
-        }
-        
-        Path currentDir = Paths.get("").toAbsolutePath();
-        if (currentDir.getFileName().toString().equals("backend")) {
-            Path parentData = currentDir.getParent().resolve("data");
-            if (Files.exists(parentData) && Files.isDirectory(parentData)) {
-                return parentData;
-            }
-        }
-        
-        Path relativeData = currentDir.resolve("data");
-        if (Files.exists(relativeData) && Files.isDirectory(relativeData)) {
-            return relativeData;
-        }
-        
-        if (currentDir.getParent() != null) {
-            Path parentData = currentDir.getParent().resolve("data");
-            if (Files.exists(parentData) && Files.isDirectory(parentData)) {
-                return parentData;
-            }
-        }
-        
-        log.warn("Could not find data directory. Using configured path: {}", path);
-        return path.toAbsolutePath();
+        return DataDirectories.resolve(dataDirectory);
+    }
+    
+    @Override
+    public String getName() {
+        return "json";
+    }
+    
+    /**
+     * Files change on disk without an event; reads revalidate against the file attributes instead
+     */
+    @Override
+    public boolean publishesChanges() {
+        return false;
     }
     
     /**
-     * Get all available weeks for a user
+     * Get all available weeks for a user, most recent first
      */
+    @Override
     public List<String> getAllWeeks(String user) {
-        Path userDir = getDataDirectory().resolve(user);
-        if (!Files.exists(userDir) || !Files.isDirectory(userDir)) {
-            return Collections.emptyList();
-        }
-        
-        List<String> weeks = new ArrayList<>();
-        try (Stream<Path> paths = Files.list(userDir)) {
-            paths.filter(Files::isRegularFile)
-                 .filter(path -> {
-                     String filename = path.getFileName().toString();
-                     return filename.endsWith(".json") && WEEK_PATTERN.matcher(filename).matches();
-                 })
-                 .map(path -> path.getFileName().toString().replace(".json", ""))
-                 .sorted()
-                 .forEach(weeks::add);
-        } catch (IOException e) {
-            log.error("Error reading directory {}: {}", userDir, e.getMessage());
-        }
+        List<String> weeks = new ArrayList<>(getWeeksAscending(user));
+        Collections.reverse(weeks);
         return weeks;
     }
     
+    private List<String> getWeeksAscending(String user) {
+        ChartArchiveReader archive = getArchive(user);
+        if (archive != null) {
+            return archive.getAllWeeks();
+        }
+        return listWeeks(getDataDirectory().resolve(user));
+    }
+    
     /**
      * Get chart data for a specific week and user
      */
+    @Override
     public List<ChartEntryDto> getChartByWeek(String week, String user) {
-        Path filePath = getDataDirectory().resolve(user).resolve(week + ".json");
-        if (!Files.exists(filePath)) {
-            log.warn("File not found: {}", filePath);
+        ChartArchiveReader archive = getArchive(user);
+        if (archive != null) {
+            int weekIndex = archive.weekIndex(week);
+            return weekIndex >= 0 ? archive.getChart(weekIndex) : Collections.emptyList();
+        }
+        return readJsonChart(getDataDirectory().resolve(user), week, getPreviousWeek(week, user));
+    }
+    
+    private List<ChartEntryDto> readJsonChart(Path userDir, String week, String previousWeek) {
+        ParsedWeek current = parseWeek(userDir.resolve(week + ".json"));
+        if (current == null) {
             return Collections.emptyList();
         }
         
-        try {
-            String content = Files.readString(filePath);
-            JsonImportRequest request = objectMapper.readValue(content, JsonImportRequest.class);
-            
-            // Get previous week for status calculation
-            String previousWeek = getPreviousWeek(week, user);
-            Map<String, Integer> previousPositions = new HashMap<>();
-            if (previousWeek != null) {
-                List<ChartEntryDto> previousEntries = getChartByWeek(previousWeek, user);
-                for (ChartEntryDto entry : previousEntries) {
-                    previousPositions.put(entry.getTrack().getId(), entry.getPosition());
+        // Get previous week for status calculation
+        Map<String, Integer> previousPositions = new HashMap<>();
+        if (previousWeek != null) {
+            ParsedWeek previous = parseWeek(userDir.resolve(previousWeek + ".json"));
+            if (previous != null) {
+                for (JsonImportRequest.ChartEntry entry : previous.entries()) {
+                    previousPositions.put(entry.getTrackId(), entry.getPlacement());
                 }
             }
-            
-            // Convert to ChartEntryDto
-            return request.getEntries().stream()
-                    .filter(entry -> entry.getTrackId() != null && !entry.getTrackId().trim().isEmpty())
-                    .filter(entry -> entry.getTitle() != null && !entry.getTitle().trim().isEmpty() && !entry.getTitle().trim().equals("—"))
-                    .filter(entry -> entry.getPlacement() != null)
-                    .sorted(Comparator.comparing(JsonImportRequest.ChartEntry::getPlacement))
-                    .map(entry -> {
-                        TrackDto trackDto = new TrackDto(
-                                entry.getTrackId(),
-                                entry.getTitle().trim(),
-                                entry.getArtists() != null ? entry.getArtists() : Collections.emptyList(),
-                                entry.getSpotifyUrl(),
-                                entry.getImageUrl() // Read imageUrl from JSON
-                        );
-                        
-                        Integer previousPosition = previousPositions.get(entry.getTrackId());
-                        
-                        return new ChartEntryDto(
-                                request.getWeek(),
-                                entry.getPlacement(),
-                                trackDto,
-                                previousPosition
-                        );
-                    })
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            log.error("Error reading file {}: {}", filePath, e.getMessage());
-            return Collections.emptyList();
         }
+        
+        // Convert to ChartEntryDto
+        List<ChartEntryDto> result = new ArrayList<>(current.entries().size());
+        for (JsonImportRequest.ChartEntry entry : current.entries()) {
+            result.add(new ChartEntryDto(
+                    current.week(),
+                    entry.getPlacement(),
+                    toTrackDto(entry),
+                    previousPositions.get(entry.getTrackId())
+            ));
+        }
+        return result;
     }
     
     /**
      * Get all tracks across all weeks for a user
      */
+    @Override
     public List<TrackDto> getAllTracks(String user) {
-        List<String> weeks = getAllWeeks(user);
+        ChartArchiveReader archive = getArchive(user);
+        if (archive != null) {
+            return archive.getAllTracks();
+        }
+        
+        Path userDir = getDataDirectory().resolve(user);
         Set<String> seenTrackIds = new HashSet<>();
         List<TrackDto> allTracks = new ArrayList<>();
         
-        for (String week : weeks) {
-            List<ChartEntryDto> entries = getChartByWeek(week, user);
-            for (ChartEntryDto entry : entries) {
-                if (!seenTrackIds.contains(entry.getTrack().getId())) {
-                    seenTrackIds.add(entry.getTrack().getId());
-                    allTracks.add(entry.getTrack());
+        for (String week : listWeeks(userDir)) {
+            ParsedWeek parsed = parseWeek(userDir.resolve(week + ".json"));
+            if (parsed == null) {
+                continue;
+            }
+            for (JsonImportRequest.ChartEntry entry : parsed.entries()) {
+                if (seenTrackIds.add(entry.getTrackId())) {
+                    allTracks.add(toTrackDto(entry));
                 }
             }
         }
@@ -169,19 +175,32 @@ public class JsonChartService {
     /**
      * Get track history across all weeks for a user
      */
+    @Override
     public TrackHistoryDto getTrackHistory(String trackId, String user) {
-        List<String> weeks = getAllWeeks(user);
+        ChartArchiveReader archive = getArchive(user);
+        if (archive != null) {
+            int track = archive.findTrack(trackId);
+            if (track < 0) {
+                throw new IllegalArgumentException("Track not found: " + trackId);
+            }
+            return archive.getTrackHistory(track);
+        }
+        
+        Path userDir = getDataDirectory().resolve(user);
         List<TrackHistoryDto.PositionPoint> history = new ArrayList<>();
         TrackDto trackDto = null;
         
-        for (String week : weeks) {
-            List<ChartEntryDto> entries = getChartByWeek(week, user);
-            for (ChartEntryDto entry : entries) {
-                if (entry.getTrack().getId().equals(trackId)) {
+        for (String week : listWeeks(userDir)) {
+            ParsedWeek parsed = parseWeek(userDir.resolve(week + ".json"));
+            if (parsed == null) {
+                continue;
+            }
+            for (JsonImportRequest.ChartEntry entry : parsed.entries()) {
+                if (entry.getTrackId().equals(trackId)) {
                     if (trackDto == null) {
-                        trackDto = entry.getTrack();
+                        trackDto = toTrackDto(entry);
                     }
-                    history.add(new TrackHistoryDto.PositionPoint(week, entry.getPosition()));
+                    history.add(new TrackHistoryDto.PositionPoint(week, entry.getPlacement()));
                     break;
                 }
             }
@@ -197,6 +216,7 @@ public class JsonChartService {
     /**
      * Get tracks that were in the previous week but not in the current week
      */
+    @Override
     public List<ChartEntryDto> getDroppedTracks(String week, String user) {
         String previousWeek = getPreviousWeek(week, user);
         if (previousWeek == null) {
@@ -240,7 +260,7 @@ public class JsonChartService {
      */
     public String getAllChartDataAsJson(String user) {
         try {
-            List<String> weeks = getAllWeeks(user);
+            List<String> weeks = getWeeksAscending(user);
             Map<String, Object> allData = new LinkedHashMap<>();
             allData.put("user", user);
             allData.put("weeks", new ArrayList<>());
@@ -261,12 +281,213 @@ public class JsonChartService {
         }
     }
     
+    /**
+     * Convert a user's JSON week files into a chart archive next to the user directory
+     */
+    public Path writeArchive(String user) throws IOException {
+        Path userDir = getDataDirectory().resolve(user);
+        List<String> weeks = listWeeks(userDir);
+        ChartArchiveWriter writer = new ChartArchiveWriter();
+        for (int i = 0; i < weeks.size(); i++) {
+            writer.addWeek(weeks.get(i), readJsonChart(userDir, weeks.get(i), i > 0 ? weeks.get(i - 1) : null));
+        }
+        
+        Path target = getArchivePath(user);
+        writer.write(target);
+        log.info("Wrote chart archive {} with {} weeks", target, weeks.size());
+        return target;
+    }
+    
+    /**
+     * (Re)build archives whose JSON files have changed since they were written
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildArchives() {
+        if (!archiveEnabled) {
+            return;
+        }
+        
+        try (Stream<Path> paths = Files.list(getDataDirectory())) {
+            for (Path userDir : paths.filter(Files::isDirectory).toList()) {
+                String user = userDir.getFileName().toString();
+                if (!listWeeks(userDir).isEmpty() && isArchiveStale(user)) {
+                    writeArchive(user);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error building chart archives: {}", e.getMessage());
+        }
+    }
+    
+    private Path getArchivePath(String user) {
+        return getDataDirectory().resolve(user + ARCHIVE_SUFFIX);
+    }
+    
+    /**
+     * The user's archive if enabled and not older than any of the user's week files, otherwise null
+     * (read JSON). Week files rewritten in place don't change the directory's mtime, so each file is
+     * compared; a passed check is reused for data.archive.check-interval.
+     */
+    private ChartArchiveReader getArchive(String user) {
+        if (!archiveEnabled) {
+            return null;
+        }
+        
+        Path archivePath = getArchivePath(user);
+        BasicFileAttributes attributes = readAttributes(archivePath);
+        if (attributes == null) {
+            archiveCache.remove(archivePath);
+            return null;
+        }
+        long now = System.nanoTime();
+        Long freshUntil = archiveFreshUntil.get(archivePath);
+        if (freshUntil == null || now - freshUntil > 0) {
+            if (isArchiveStale(user)) {
+                archiveFreshUntil.remove(archivePath);
+                return null;
+            }
+            archiveFreshUntil.put(archivePath, now + archiveCheckInterval.toNanos());
+        }
+        
+        OpenArchive cached = archiveCache.get(archivePath);
+        if (cached != null && cached.size() == attributes.size()
+                && cached.lastModified().equals(attributes.lastModifiedTime())) {
+            return cached.reader();
+        }
+        
+        try {
+            ChartArchiveReader reader = ChartArchiveReader.open(archivePath);
+            archiveCache.put(archivePath, new OpenArchive(attributes.lastModifiedTime(), attributes.size(), reader));
+            return reader;
+        } catch (IOException e) {
+            log.warn("Could not open chart archive {}: {}", archivePath, e.getMessage());
+            return null;
+        }
+    }
+    
+    private boolean isArchiveStale(String user) {
+        BasicFileAttributes archive = readAttributes(getArchivePath(user));
+        if (archive == null) {
+            return true;
+        }
+        
+        Path userDir = getDataDirectory().resolve(user);
+        BasicFileAttributes dir = readAttributes(userDir);
+        if (dir == null || dir.lastModifiedTime().compareTo(archive.lastModifiedTime()) > 0) {
+            return true;
+        }
+        for (String week : listWeeks(userDir)) {
+            BasicFileAttributes file = readAttributes(userDir.resolve(week + ".json"));
+            if (file == null || file.lastModifiedTime().compareTo(archive.lastModifiedTime()) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     private String getPreviousWeek(String currentWeek, String user) {
-        List<String> allWeeks = getAllWeeks(user);
-        int currentIndex = allWeeks.indexOf(currentWeek);
+        List<String> allWeeks = getWeeksAscending(user);
+        int currentIndex = Collections.binarySearch(allWeeks, currentWeek);
         if (currentIndex > 0) {
             return allWeeks.get(currentIndex - 1);
         }
         return null;
     }
+    
+    /**
+     * Sorted week names in a user directory, re-listed only when the directory changes
+     */
+    private List<String> listWeeks(Path userDir) {
+        BasicFileAttributes attributes = readAttributes(userDir);
+        if (attributes == null || !attributes.isDirectory()) {
+            weekListingCache.remove(userDir);
+            return Collections.emptyList();
+        }
+        
+        WeekListing cached = weekListingCache.get(userDir);
+        if (cached != null && cached.lastModified().equals(attributes.lastModifiedTime())) {
+            return cached.weeks();
+        }
+        
+        List<String> weeks = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(userDir)) {
+            paths.filter(Files::isRegularFile)
+                 .filter(path -> {
+                     String filename = path.getFileName().toString();
+                     return filename.endsWith(".json") && WEEK_PATTERN.matcher(filename).matches();
+                 })
+                 .map(path -> path.getFileName().toString().replace(".json", ""))
+                 .sorted()
+                 .forEach(weeks::add);
+        } catch (IOException e) {
+            log.error("Error reading directory {}: {}", userDir, e.getMessage());
+            return weeks;
+        }
+        
+        List<String> listing = Collections.unmodifiableList(weeks);
+        weekListingCache.put(userDir, new WeekListing(attributes.lastModifiedTime(), listing));
+        return listing;
+    }
+    
+    /**
+     * Parse a week file, reusing the previous result while its size and last-modified time are unchanged.
+     * Entries are filtered and sorted by placement. Returns null if the file is missing or unreadable.
+     */
+    private ParsedWeek parseWeek(Path filePath) {
+        BasicFileAttributes attributes = readAttributes(filePath);
+        if (attributes == null || !attributes.isRegularFile()) {
+            log.warn("File not found: {}", filePath);
+            weekCache.remove(filePath);
+            return null;
+        }
+        
+        ParsedWeek cached = weekCache.get(filePath);
+        if (cached != null && cached.size() == attributes.size()
+                && cached.lastModified().equals(attributes.lastModifiedTime())) {
+            return cached;
+        }
+        
+        try {
+            JsonImportRequest request = objectMapper.readValue(filePath.toFile(), JsonImportRequest.class);
+            List<JsonImportRequest.ChartEntry> entries = request.getEntries().stream()
+                    .filter(entry -> entry.getTrackId() != null && !entry.getTrackId().trim().isEmpty())
+                    .filter(entry -> entry.getTitle() != null && !entry.getTitle().trim().isEmpty() && !entry.getTitle().trim().equals("—"))
+                    .filter(entry -> entry.getPlacement() != null)
+                    .sorted(Comparator.comparing(JsonImportRequest.ChartEntry::getPlacement))
+                    .toList();
+            
+            ParsedWeek parsed = new ParsedWeek(attributes.lastModifiedTime(), attributes.size(), request.getWeek(), entries);
+            weekCache.put(filePath, parsed);
+            return parsed;
+        } catch (IOException e) {
+            log.error("Error reading file {}: {}", filePath, e.getMessage());
+            return null;
+        }
+    }
+    
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private static TrackDto toTrackDto(JsonImportRequest.ChartEntry entry) {
+        return new TrackDto(
+                entry.getTrackId(),
+                entry.getTitle().trim(),
+                entry.getArtists() != null ? entry.getArtists() : Collections.emptyList(),
+                entry.getImageUrl() // Read imageUrl from JSON
+        );
+    }
+    
+    private record ParsedWeek(FileTime lastModified, long size, String week, List<JsonImportRequest.ChartEntry> entries) {
+    }
+    
+    private record OpenArchive(FileTime lastModified, long size, ChartArchiveReader reader) {
+    }
+    
+    private record WeekListing(FileTime lastModified, List<String> weeks) {
+    }
 }
@@ -0,0 +1,8 @@
+package com.top50.service;
+
+/**
+ * Published once the startup import of {@link DataImportService} is done, or when it decided not to
+ * import. With data.import.async this happens after the application is ready.
+ */
+public record StartupImportFinishedEvent() {
+}
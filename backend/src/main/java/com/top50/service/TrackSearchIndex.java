@@ -0,0 +1,527 @@
+package com.top50.service;
+
+import com.top50.config.ReadWriteRoutingDataSource;
+import com.top50.dto.JsonImportRequest;
+import com.top50.dto.TrackDto;
+import com.top50.entity.Track;
+import com.top50.repository.ChartEntryRepository;
+import com.top50.repository.TrackArtistRepository;
+import com.top50.repository.TrackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory prefix index over track titles and artist names used for type-ahead search.
+ *
+ * Every word of a track's title and of its artists' normalized names is indexed under its prefixes
+ * of {@link #MIN_PREFIX_LENGTH} to {@link #MAX_PREFIX_LENGTH} characters, each prefix mapping to a
+ * sorted posting list of document ids. A query is answered by intersecting the posting lists of its
+ * words, so the cost depends on the size of the smallest list rather than on the size of the
+ * library. Single characters are not indexed: their lists would hold most of the library, and a
+ * query made of them alone returns nothing.
+ *
+ * Only tracks with live chart entries are indexed. The index is built from the database once the
+ * application is ready; {@link DataImportService} adds the tracks of every imported week, and on a
+ * {@link ChartDataChangedEvent} the user's tracks are reloaded, so deleted, restored and re-imported
+ * weeks are reflected. Tracks no user charts any more are dropped from the postings until they are
+ * charted again.
+ */
+@Component
+@Profile("!files")
+@RequiredArgsConstructor
+@Slf4j
+public class TrackSearchIndex {
+    private final TrackRepository trackRepository;
+    private final TrackArtistRepository trackArtistRepository;
+    private final ChartEntryRepository chartEntryRepository;
+
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_LENGTH = 12;
+    private static final int MAX_QUERY_TOKENS = 6;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document storage, indexed by document id; a document no user charts is retired, keeping its id
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> docIdsByTrackId = new HashMap<>();
+    private final BitSet retired = new BitSet();
+
+    // Prefix -> sorted document ids
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    // Lowercased username -> documents that appeared in that user's charts
+    private final Map<String, BitSet> docsByUser = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        Map<String, List<String[]>> artistsByTrack = new HashMap<>();
+        for (Object[] row : trackArtistRepository.findAllTrackArtistNames()) {
+            artistsByTrack.computeIfAbsent((String) row[0], id -> new ArrayList<>())
+                .add(new String[] {(String) row[1], (String) row[2]});
+        }
+
+        List<Track> tracks = trackRepository.findByDeletedAtIsNull();
+        List<Object[]> memberships = chartEntryRepository.findDistinctUsernameAndTrackIds();
+
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            docIdsByTrackId.clear();
+            retired.clear();
+            postings.clear();
+            docsByUser.clear();
+
+            Set<String> charted = new HashSet<>();
+            for (Object[] row : memberships) {
+                charted.add((String) row[1]);
+            }
+            for (Track track : tracks) {
+                if (!charted.contains(track.getSpotifyId())) {
+                    continue;
+                }
+                List<String[]> artists = artistsByTrack.getOrDefault(track.getSpotifyId(), Collections.emptyList());
+                List<String> names = new ArrayList<>(artists.size());
+                List<String> normalizedNames = new ArrayList<>(artists.size());
+                for (String[] artist : artists) {
+                    names.add(artist[0]);
+                    normalizedNames.add(artist[1]);
+                }
+                TrackDto dto = new TrackDto(track.getSpotifyId(), track.getTitle(), names, track.getImageUrl());
+                upsert(dto, normalizedNames);
+            }
+
+            for (Object[] row : memberships) {
+                Integer docId = docIdsByTrackId.get((String) row[1]);
+                if (docId != null) {
+                    docsByUser.computeIfAbsent(normalize((String) row[0]), u -> new BitSet()).set(docId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Track search index built: {} tracks, {} prefixes in {} ms",
+            docs.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Reload which tracks the user charts, read from the primary since the change just committed.
+     * Tracks the user no longer charts leave the user's results, and the index altogether if no
+     * other user charts them.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ChartDataChangedEvent.ORDER_INDEX)
+    public void onChartDataChanged(ChartDataChangedEvent event) {
+        String user = normalize(event.username());
+        List<String> trackIds = ReadWriteRoutingDataSource.onPrimary(
+            () -> chartEntryRepository.findDistinctTrackIdsByUsername(user));
+
+        lock.writeLock().lock();
+        try {
+            BitSet current = new BitSet();
+            for (String trackId : trackIds) {
+                Integer docId = docIdsByTrackId.get(trackId);
+                if (docId != null) {
+                    if (retired.get(docId)) {
+                        restore(docId);
+                    }
+                    current.set(docId);
+                }
+            }
+            BitSet previous = current.isEmpty() ? docsByUser.remove(user) : docsByUser.put(user, current);
+            if (previous != null) {
+                previous.andNot(current);
+                for (int docId = previous.nextSetBit(0); docId >= 0; docId = previous.nextSetBit(docId + 1)) {
+                    if (!chartedByAnyone(docId)) {
+                        retire(docId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Track search index refreshed for user: {} ({} tracks)", user, trackIds.size());
+    }
+
+    /**
+     * Add or refresh the tracks of an imported week.
+     */
+    public void index(String username, List<JsonImportRequest.ChartEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            BitSet userDocs = docsByUser.computeIfAbsent(normalize(username), u -> new BitSet());
+            for (JsonImportRequest.ChartEntry entry : entries) {
+                if (entry.getTrackId() == null || entry.getTrackId().isBlank() || entry.getTitle() == null) {
+                    continue;
+                }
+
+                List<String> names = new ArrayList<>();
+                List<String> normalizedNames = new ArrayList<>();
+                if (entry.getArtists() != null) {
+                    for (String artist : entry.getArtists()) {
+                        if (artist != null && !artist.trim().isEmpty()) {
+                            names.add(artist);
+                            normalizedNames.add(normalize(artist));
+                        }
+                    }
+                }
+
+                TrackDto dto = new TrackDto(entry.getTrackId(), entry.getTitle(), names, entry.getImageUrl());
+                userDocs.set(upsert(dto, normalizedNames));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search tracks whose title or artist words start with every word of the query.
+     *
+     * @param query Free-text query, e.g. "blind weekn"
+     * @param username Restrict results to tracks charted by this user, or null for all tracks
+     * @param limit Maximum number of results
+     * @return Matching tracks, best match first
+     */
+    public List<TrackDto> search(String query, String username, int limit) {
+        List<String> queryTokens = tokenize(normalize(query));
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (queryTokens.size() > MAX_QUERY_TOKENS) {
+            queryTokens = queryTokens.subList(0, MAX_QUERY_TOKENS);
+        }
+        String normalizedQuery = String.join(" ", queryTokens);
+
+        lock.readLock().lock();
+        try {
+            BitSet userDocs = null;
+            if (username != null) {
+                userDocs = docsByUser.get(normalize(username));
+                if (userDocs == null) {
+                    return Collections.emptyList();
+                }
+            }
+
+            // Single-character words are not indexed; they only take part in the scoring
+            List<String> indexedTokens = queryTokens.stream()
+                .filter(token -> token.length() >= MIN_PREFIX_LENGTH)
+                .toList();
+            if (indexedTokens.isEmpty()) {
+                return Collections.emptyList();
+            }
+            IntList[] lists = new IntList[indexedTokens.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(prefixKey(indexedTokens.get(i)));
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            // Min-heap of the best hits so far, worst hit on top. Every document of the smallest list
+            // is considered, so a better match is never cut off by its position in the list.
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+            IntList smallest = lists[0];
+            for (int i = 0; i < smallest.size; i++) {
+                int docId = smallest.values[i];
+                if (userDocs != null && !userDocs.get(docId)) {
+                    continue;
+                }
+                if (!containsInAll(lists, docId)) {
+                    continue;
+                }
+
+                Doc doc = docs.get(docId);
+                int score = score(doc, queryTokens, normalizedQuery);
+                if (score < 0) {
+                    continue; // A long query word matched on its indexed prefix only
+                }
+                if (best.size() < limit) {
+                    best.add(new Hit(docId, score, doc.titleNorm().length()));
+                } else if (compareHits(score, doc.titleNorm().length(), best.peek()) > 0) {
+                    best.poll();
+                    best.add(new Hit(docId, score, doc.titleNorm().length()));
+                }
+            }
+
+            List<TrackDto> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                results.add(docs.get(best.poll().docId()).dto());
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed tracks
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size() - retired.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock
+    private int upsert(TrackDto dto, List<String> normalizedArtists) {
+        String titleNorm = normalize(dto.getTitle());
+        String artistNorm = String.join(" ", normalizedArtists);
+
+        Integer existingId = docIdsByTrackId.get(dto.getId());
+        int docId;
+        if (existingId != null && retired.get(existingId)) {
+            docId = existingId;
+            docs.set(docId, new Doc(dto, titleNorm, artistNorm));
+            retired.clear(docId);
+        } else if (existingId != null) {
+            docId = existingId;
+            Doc existing = docs.get(docId);
+            // Keep previously known artists if the update carries none
+            if (normalizedArtists.isEmpty() && !existing.artistNorm().isEmpty()) {
+                artistNorm = existing.artistNorm();
+                dto.setArtists(existing.dto().getArtists());
+            }
+            docs.set(docId, new Doc(dto, titleNorm, artistNorm));
+            removeTokens(existing, titleNorm, artistNorm, docId);
+        } else {
+            docId = docs.size();
+            docs.add(new Doc(dto, titleNorm, artistNorm));
+            docIdsByTrackId.put(dto.getId(), docId);
+        }
+
+        addTokens(titleNorm, docId);
+        addTokens(artistNorm, docId);
+        return docId;
+    }
+
+    private void addTokens(String text, int docId) {
+        for (String prefix : prefixes(text)) {
+            postings.computeIfAbsent(prefix, p -> new IntList()).addSorted(docId);
+        }
+    }
+
+    // Caller must hold the write lock
+    private boolean chartedByAnyone(int docId) {
+        for (BitSet userDocs : docsByUser.values()) {
+            if (userDocs.get(docId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop a document from the postings; its id stays reserved for the track in case it returns
+     */
+    private void retire(int docId) {
+        Doc doc = docs.get(docId);
+        Set<String> stale = prefixes(doc.titleNorm());
+        stale.addAll(prefixes(doc.artistNorm()));
+        removePostings(stale, docId);
+        retired.set(docId);
+    }
+
+    /**
+     * Put a retired document back, e.g. when a deleted week is restored
+     */
+    private void restore(int docId) {
+        Doc doc = docs.get(docId);
+        addTokens(doc.titleNorm(), docId);
+        addTokens(doc.artistNorm(), docId);
+        retired.clear(docId);
+    }
+
+    /**
+     * Drop the postings of a changed document's old title and artists that the new ones don't have
+     */
+    private void removeTokens(Doc old, String titleNorm, String artistNorm, int docId) {
+        Set<String> current = prefixes(titleNorm);
+        current.addAll(prefixes(artistNorm));
+        Set<String> stale = prefixes(old.titleNorm());
+        stale.addAll(prefixes(old.artistNorm()));
+        stale.removeAll(current);
+        removePostings(stale, docId);
+    }
+
+    private void removePostings(Set<String> prefixes, int docId) {
+        for (String prefix : prefixes) {
+            IntList list = postings.get(prefix);
+            if (list != null && list.remove(docId) && list.size == 0) {
+                postings.remove(prefix);
+            }
+        }
+    }
+
+    private static Set<String> prefixes(String text) {
+        Set<String> prefixes = new HashSet<>();
+        for (String token : tokenize(text)) {
+            int maxLength = Math.min(token.length(), MAX_PREFIX_LENGTH);
+            for (int length = MIN_PREFIX_LENGTH; length <= maxLength; length++) {
+                prefixes.add(token.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    private static boolean containsInAll(IntList[] lists, int docId) {
+        for (int i = 1; i < lists.length; i++) {
+            if (Arrays.binarySearch(lists[i].values, 0, lists[i].size, docId) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rank a candidate: a title that starts with the whole query ranks highest, then word prefix
+     * matches in the title, then in the artist names. Returns -1 if a query word does not actually
+     * prefix any word of the track (possible for words longer than the indexed prefix length).
+     */
+    private static int score(Doc doc, List<String> queryTokens, String normalizedQuery) {
+        int score = 0;
+        if (doc.titleNorm().startsWith(normalizedQuery)) {
+            score += 100;
+            if (doc.titleNorm().length() == normalizedQuery.length()) {
+                score += 50;
+            }
+        }
+        for (String queryToken : queryTokens) {
+            int tokenScore = Math.max(
+                wordPrefixScore(doc.titleNorm(), queryToken, 10),
+                wordPrefixScore(doc.artistNorm(), queryToken, 6));
+            if (tokenScore == 0) {
+                return -1;
+            }
+            score += tokenScore;
+        }
+        return score;
+    }
+
+    private static int wordPrefixScore(String text, String token, int weight) {
+        int best = 0;
+        int from = 0;
+        while ((from = text.indexOf(token, from)) >= 0) {
+            boolean wordStart = from == 0 || !Character.isLetterOrDigit(text.charAt(from - 1));
+            if (wordStart) {
+                int end = from + token.length();
+                boolean wholeWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+                best = Math.max(best, wholeWord ? weight + 2 : weight);
+                if (wholeWord) {
+                    break;
+                }
+            }
+            from++;
+        }
+        return best;
+    }
+
+    private static int compareHits(int score, int titleLength, Hit other) {
+        if (score != other.score()) {
+            return Integer.compare(score, other.score());
+        }
+        return Integer.compare(other.titleLength(), titleLength); // Shorter titles rank higher
+    }
+
+    private static String prefixKey(String token) {
+        return token.length() > MAX_PREFIX_LENGTH ? token.substring(0, MAX_PREFIX_LENGTH) : token;
+    }
+
+    /**
+     * Same normalization as {@code Artist.normalizedName} (lowercase, trimmed)
+     */
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase().trim();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private record Doc(TrackDto dto, String titleNorm, String artistNorm) {
+    }
+
+    private record Hit(int docId, int score, int titleLength) implements Comparable<Hit> {
+        @Override
+        public int compareTo(Hit other) {
+            return compareHits(score, titleLength, other);
+        }
+    }
+
+    /**
+     * Growable, sorted array of document ids
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addSorted(int value) {
+            if (size > 0 && values[size - 1] < value) {
+                append(value);
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity();
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void append(int value) {
+            ensureCapacity();
+            values[size++] = value;
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+    }
+}
@@ -1,60 +1,219 @@
 package com.top50.service;
 
+import com.top50.config.ReadWriteRoutingDataSource;
 import com.top50.entity.Week;
 import com.top50.repository.WeekRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.WeekFields;
-import java.util.Locale;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * ISO week calendar backed by an in-memory copy of the weeks table.
+ *
+ * All weeks are loaded on first use and new weeks are added as they are created, so resolving
+ * "2026-W05" to its {@link Week}, or walking back from a week to the ones before it, is a map
+ * lookup that does not query the database. Weeks created by another instance are picked up by
+ * reloading the calendar from the primary: on a lookup of a week this instance has not seen, unless
+ * the calendar is younger than weeks.calendar.miss-ttl (so misses are answered from memory for
+ * that long), and on any use once it is older than weeks.calendar.max-age. Nothing is read while
+ * the context refreshes, which the database-free CDS training run in Dockerfile.backend depends on.
+ */
 @Service
+@Profile("!files")
 @RequiredArgsConstructor
+@Slf4j
 public class WeekService {
     private final WeekRepository weekRepository;
-    
-    private static final WeekFields WEEK_FIELDS = WeekFields.ISO;
-    private static final DateTimeFormatter ISO_WEEK_FORMATTER = DateTimeFormatter.ofPattern("yyyy-'W'ww");
-    
+
+    private final Map<String, Week> weeksByIso = new ConcurrentHashMap<>();
+
+    private final NavigableMap<LocalDate, Week> weeksByStartDate = new ConcurrentSkipListMap<>();
+
+    @Value("${weeks.calendar.miss-ttl:5s}")
+    private Duration missTtl;
+
+    @Value("${weeks.calendar.max-age:1m}")
+    private Duration maxAge;
+
+    private volatile boolean loaded;
+
+    // System.nanoTime() when the last (re)load started
+    private volatile long loadedAt;
+
+    private void loadCalendar() {
+        loadCalendar(maxAge);
+    }
+
+    /**
+     * Load the calendar, or merge in the weeks table again when it was loaded longer than maxAge ago.
+     * Weeks are never deleted, so merging is enough.
+     */
+    private void loadCalendar(Duration maxAge) {
+        if (isFresh(maxAge)) {
+            return;
+        }
+        synchronized (this) {
+            if (!isFresh(maxAge)) {
+                long started = System.nanoTime();
+                List<Week> weeks = ReadWriteRoutingDataSource.onPrimary(() -> weekRepository.findAll());
+                weeks.forEach(this::register);
+                loadedAt = started;
+                if (!loaded) {
+                    log.info("Week calendar loaded with {} weeks", weeks.size());
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    private boolean isFresh(Duration maxAge) {
+        return loaded && System.nanoTime() - loadedAt < maxAge.toNanos();
+    }
+
     @Transactional
     public Week getOrCreateWeek(String isoFormat) {
+        loadCalendar();
+        Week cached = weeksByIso.get(isoFormat);
+        if (cached != null) {
+            return cached;
+        }
+
         Optional<Week> existing = weekRepository.findByIsoFormat(isoFormat);
         if (existing.isPresent()) {
+            register(existing.get());
             return existing.get();
         }
-        
-        // Parse ISO format (e.g., "2026-W05")
-        String[] parts = isoFormat.split("-W");
-        int year = Integer.parseInt(parts[0]);
-        int weekNumber = Integer.parseInt(parts[1]);
-        
-        // Calculate start and end dates for the week
-        // ISO week: Week 1 is the first week with at least 4 days in the year
-        LocalDate jan4 = LocalDate.of(year, 1, 4);
-        int dayOfWeek = jan4.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
-        LocalDate week1Start = jan4.minusDays(dayOfWeek - 1);
-        
-        LocalDate startDate = week1Start.plusWeeks(weekNumber - 1);
+
+        LocalDate startDate = startDate(isoFormat);
         LocalDate endDate = startDate.plusDays(6);
-        
+
         Week week = new Week();
         week.setId(UUID.randomUUID().toString());
-        week.setWeekYear(year);
-        week.setWeekNumber(weekNumber);
+        week.setWeekYear(parseYear(isoFormat));
+        week.setWeekNumber(parseWeekNumber(isoFormat));
         week.setStartDate(startDate);
         week.setEndDate(endDate);
         week.setIsoFormat(isoFormat);
         week.setCreatedAt(java.time.LocalDateTime.now());
-        
-        return weekRepository.save(week);
+
+        Week saved = weekRepository.save(week);
+        registerAfterCommit(saved);
+        return saved;
     }
-    
+
+    /**
+     * The week if it exists. A week this instance has not seen reloads the calendar, at most once
+     * per weeks.calendar.miss-ttl; names that are not valid ISO weeks never reach the database.
+     */
     public Optional<Week> findByIsoFormat(String isoFormat) {
-        return weekRepository.findByIsoFormat(isoFormat);
+        loadCalendar();
+        Week cached = weeksByIso.get(isoFormat);
+        if (cached != null || !isValid(isoFormat)) {
+            return Optional.ofNullable(cached);
+        }
+
+        loadCalendar(missTtl);
+        return Optional.ofNullable(weeksByIso.get(isoFormat));
+    }
+
+    /**
+     * Known weeks before the given one, newest first
+     */
+    public Collection<Week> getWeeksBefore(Week week) {
+        loadCalendar();
+        return weeksByStartDate.headMap(week.getStartDate(), false).descendingMap().values();
+    }
+
+    /**
+     * ISO format of every known week
+     */
+    public Set<String> getAllIsoFormats() {
+        loadCalendar();
+        return Collections.unmodifiableSet(weeksByIso.keySet());
+    }
+
+    /**
+     * Monday of an ISO week (e.g. "2026-W05"), whether or not the week is known
+     */
+    public static LocalDate startDate(String isoFormat) {
+        int year = parseYear(isoFormat);
+        int weekNumber = parseWeekNumber(isoFormat);
+
+        // ISO week: Week 1 is the first week with at least 4 days in the year
+        LocalDate jan4 = LocalDate.of(year, 1, 4);
+        int dayOfWeek = jan4.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
+        LocalDate week1Start = jan4.minusDays(dayOfWeek - 1);
+        return week1Start.plusWeeks(weekNumber - 1);
+    }
+
+    static int parseYear(String isoFormat) {
+        checkFormat(isoFormat);
+        return digit(isoFormat, 0) * 1000 + digit(isoFormat, 1) * 100 + digit(isoFormat, 2) * 10 + digit(isoFormat, 3);
+    }
+
+    /**
+     * Week number of an ISO week, checked against the weeks of its year (W53 only in years that have it)
+     */
+    static int parseWeekNumber(String isoFormat) {
+        int year = parseYear(isoFormat);
+        int weekNumber = digit(isoFormat, 6) * 10 + digit(isoFormat, 7);
+        // Mid-year lies in the week-based year of the same number
+        if (!IsoFields.WEEK_OF_WEEK_BASED_YEAR.rangeRefinedBy(LocalDate.of(year, 7, 1)).isValidIntValue(weekNumber)) {
+            throw new IllegalArgumentException("Invalid week number in: " + isoFormat);
+        }
+        return weekNumber;
+    }
+
+    static boolean isValid(String isoFormat) {
+        try {
+            parseWeekNumber(isoFormat);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void checkFormat(String isoFormat) {
+        if (isoFormat == null || isoFormat.length() != 8 || isoFormat.charAt(4) != '-' || isoFormat.charAt(5) != 'W') {
+            throw new IllegalArgumentException("Invalid week format. Expected YYYY-Www (e.g., 2026-W05): " + isoFormat);
+        }
+    }
+
+    private static int digit(String isoFormat, int index) {
+        char c = isoFormat.charAt(index);
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Invalid week format. Expected YYYY-Www (e.g., 2026-W05): " + isoFormat);
+        }
+        return c - '0';
+    }
+
+    private void registerAfterCommit(Week week) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    register(week);
+                }
+            });
+        } else {
+            register(week);
+        }
+    }
+
+    private void register(Week week) {
+        weeksByIso.put(week.getIsoFormat(), week);
+        weeksByStartDate.put(week.getStartDate(), week);
     }
 }
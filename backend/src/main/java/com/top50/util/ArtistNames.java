@@ -0,0 +1,38 @@
+package com.top50.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoding of {@code tracks.artist_names}: a track's artist names in credit order, joined by the
+ * ASCII unit separator (U+001F), which does not occur in artist names.
+ *
+ * The column is a read copy; {@code track_artists} stays the source of truth and the column is
+ * rewritten whenever a track's artist links change.
+ */
+public final class ArtistNames {
+    public static final char SEPARATOR = '\u001F';
+    
+    private ArtistNames() {
+    }
+    
+    /**
+     * Join names in credit order; null for a track without artists
+     */
+    public static String join(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return null;
+        }
+        return String.join(String.valueOf(SEPARATOR), names);
+    }
+    
+    /**
+     * Split a stored value back into names in credit order
+     */
+    public static List<String> split(String joined) {
+        if (joined == null || joined.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return List.of(joined.split(String.valueOf(SEPARATOR), -1));
+    }
+}
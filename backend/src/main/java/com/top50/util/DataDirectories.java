@@ -0,0 +1,34 @@
+package com.top50.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Location of the JSON data directory (data.directory).
+ *
+ * A configured directory is used as given, whether it exists or not, so a missing directory shows up
+ * as such instead of silently reading another one. Left empty, the "data" directory next to the
+ * working directory is used: ./data from the project root, ../data from backend/.
+ */
+public final class DataDirectories {
+    
+    private DataDirectories() {
+    }
+    
+    public static Path resolve(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured).toAbsolutePath();
+        }
+        
+        Path currentDir = Paths.get("").toAbsolutePath();
+        Path relativeData = currentDir.resolve("data");
+        if (!Files.isDirectory(relativeData) && currentDir.getParent() != null) {
+            Path parentData = currentDir.getParent().resolve("data");
+            if (Files.isDirectory(parentData)) {
+                return parentData;
+            }
+        }
+        return relativeData;
+    }
+}
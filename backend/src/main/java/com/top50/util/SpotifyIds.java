@@ -0,0 +1,43 @@
+package com.top50.util;
+
+/**
+ * Helpers for Spotify track ids (22-character base62 strings).
+ *
+ * Tracks are stored under an integer surrogate key; the Spotify id is kept once in
+ * {@code tracks.spotify_id} and the track URL is derived from it instead of being stored.
+ */
+public final class SpotifyIds {
+    public static final int LENGTH = 22;
+    
+    private static final String TRACK_URL_PREFIX = "https://open.spotify.com/track/";
+    
+    private SpotifyIds() {
+    }
+    
+    /**
+     * Check that an id is a 22-character base62 string
+     */
+    public static boolean isValid(String id) {
+        if (id == null || id.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            boolean base62 = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!base62) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Build the open.spotify.com URL for a track id
+     */
+    public static String toTrackUrl(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        return TRACK_URL_PREFIX + id;
+    }
+}
@@ -0,0 +1,86 @@
+-- Replace the 22-character Spotify id as the tracks primary key with an INT surrogate key.
+-- The Spotify id is kept once in tracks.spotify_id (fixed-width, case-sensitive ASCII) and every
+-- referencing table stores the 4-byte key instead of a VARCHAR(50). spotify_url is dropped since
+-- it is always https://open.spotify.com/track/<spotify_id> and is now derived on read.
+-- Foreign key names are the ones MySQL generated for the unnamed constraints in V1.
+
+-- ============================================
+-- 1. Detach referencing tables
+-- ============================================
+ALTER TABLE chart_entries DROP FOREIGN KEY chart_entries_ibfk_2;
+ALTER TABLE track_artists DROP FOREIGN KEY track_artists_ibfk_1;
+ALTER TABLE track_statistics DROP FOREIGN KEY track_statistics_ibfk_1;
+
+-- ============================================
+-- 2. Tracks: surrogate key + compact Spotify id
+-- ============================================
+ALTER TABLE tracks
+    DROP PRIMARY KEY,
+    CHANGE COLUMN id spotify_id CHAR(22) CHARACTER SET ascii COLLATE ascii_bin NOT NULL,
+    DROP COLUMN spotify_url,
+    ADD UNIQUE KEY uk_tracks_spotify_id (spotify_id);
+
+ALTER TABLE tracks ADD COLUMN id INT NOT NULL AUTO_INCREMENT PRIMARY KEY FIRST;
+
+-- ============================================
+-- 3. Chart entries
+-- ============================================
+ALTER TABLE chart_entries ADD COLUMN track_key INT NULL AFTER playlist_id;
+
+UPDATE chart_entries ce
+    JOIN tracks t ON CAST(t.spotify_id AS BINARY) = CAST(ce.track_id AS BINARY)
+SET ce.track_key = t.id;
+
+ALTER TABLE chart_entries
+    DROP INDEX uk_chart_entries_playlist_week_track,
+    DROP INDEX idx_chart_entries_track_playlist_week,
+    DROP INDEX idx_chart_entries_playlist_track_week,
+    DROP COLUMN track_id;
+
+ALTER TABLE chart_entries
+    CHANGE COLUMN track_key track_id INT NOT NULL,
+    ADD UNIQUE KEY uk_chart_entries_playlist_week_track (playlist_id, week_id, track_id),
+    ADD INDEX idx_chart_entries_track_playlist_week (track_id, playlist_id, week_id),
+    ADD INDEX idx_chart_entries_playlist_track_week (playlist_id, track_id, week_id),
+    ADD CONSTRAINT fk_chart_entries_track FOREIGN KEY (track_id) REFERENCES tracks(id) ON DELETE RESTRICT;
+
+-- ============================================
+-- 4. Track artists
+-- ============================================
+ALTER TABLE track_artists ADD COLUMN track_key INT NULL FIRST;
+
+UPDATE track_artists ta
+    JOIN tracks t ON CAST(t.spotify_id AS BINARY) = CAST(ta.track_id AS BINARY)
+SET ta.track_key = t.id;
+
+ALTER TABLE track_artists
+    DROP PRIMARY KEY,
+    DROP INDEX uk_track_artists_position,
+    DROP INDEX idx_track_artists_track,
+    DROP COLUMN track_id;
+
+ALTER TABLE track_artists
+    CHANGE COLUMN track_key track_id INT NOT NULL,
+    ADD PRIMARY KEY (track_id, artist_id),
+    ADD UNIQUE KEY uk_track_artists_position (track_id, position),
+    ADD CONSTRAINT fk_track_artists_track FOREIGN KEY (track_id) REFERENCES tracks(id) ON DELETE RESTRICT;
+
+-- ============================================
+-- 5. Track statistics
+-- ============================================
+ALTER TABLE track_statistics ADD COLUMN track_key INT NULL FIRST;
+
+UPDATE track_statistics ts
+    JOIN tracks t ON CAST(t.spotify_id AS BINARY) = CAST(ts.track_id AS BINARY)
+SET ts.track_key = t.id;
+
+DELETE FROM track_statistics WHERE track_key IS NULL;
+
+ALTER TABLE track_statistics
+    DROP PRIMARY KEY,
+    DROP COLUMN track_id;
+
+ALTER TABLE track_statistics
+    CHANGE COLUMN track_key track_id INT NOT NULL,
+    ADD PRIMARY KEY (track_id, playlist_id),
+    ADD CONSTRAINT fk_track_statistics_track FOREIGN KEY (track_id) REFERENCES tracks(id) ON DELETE CASCADE;
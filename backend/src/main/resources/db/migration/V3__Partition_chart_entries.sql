@@ -0,0 +1,75 @@
+-- Range-partition chart_entries by ISO week year and replace its indexes with covering indexes for the
+-- queries in ChartEntryRepository, all of which filter on deleted_at IS NULL.
+--
+-- MySQL requires every unique key of a partitioned table, including the primary key, to contain the
+-- partitioning column, and partitioned InnoDB tables cannot have foreign keys. week_year is therefore
+-- copied from weeks into chart_entries, added to the primary and unique keys, and the foreign keys are
+-- dropped; DataImportService and CompactionService keep the references consistent.
+--
+-- A year's entries can be removed with ALTER TABLE chart_entries DROP PARTITION p<year>. New years land
+-- in pmax until it is split: ALTER TABLE chart_entries REORGANIZE PARTITION pmax INTO
+-- (PARTITION p2031 VALUES LESS THAN (2032), PARTITION pmax VALUES LESS THAN MAXVALUE).
+-- Foreign key names are the ones MySQL generated for the unnamed constraints in V1, and the one in V2.
+
+-- ============================================
+-- 1. Drop foreign keys
+-- ============================================
+ALTER TABLE chart_entries
+    DROP FOREIGN KEY chart_entries_ibfk_1,
+    DROP FOREIGN KEY chart_entries_ibfk_3,
+    DROP FOREIGN KEY chart_entries_ibfk_4,
+    DROP FOREIGN KEY fk_chart_entries_track;
+
+-- ============================================
+-- 2. Partitioning column
+-- ============================================
+ALTER TABLE chart_entries ADD COLUMN week_year INT NULL AFTER week_id;
+
+UPDATE chart_entries ce
+    JOIN weeks w ON w.id = ce.week_id
+SET ce.week_year = w.week_year;
+
+ALTER TABLE chart_entries MODIFY COLUMN week_year INT NOT NULL;
+
+-- ============================================
+-- 3. Keys and covering indexes
+-- ============================================
+-- Secondary indexes also hold the primary key (id, week_year), so they cover those columns too.
+--   idx_chart_entries_playlist_week_live: a week's chart in position order (findByPlaylistAndWeek*),
+--     the weeks of a playlist (findDistinctWeeksByPlaylist) and chart rows (findChartRowsByPlaylist)
+--   idx_chart_entries_track_playlist_live: a track's history (findByTrackAndPlaylistOrderByWeek) and
+--     the orphaned-track check of compaction
+--   idx_chart_entries_playlist_track_live: distinct tracks of a playlist (findDistinctTracksByPlaylist)
+ALTER TABLE chart_entries
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, week_year),
+    DROP INDEX uk_chart_entries_playlist_week_track,
+    DROP INDEX uk_chart_entries_playlist_week_position,
+    DROP INDEX idx_chart_entries_playlist_week_position,
+    DROP INDEX idx_chart_entries_track_playlist_week,
+    DROP INDEX idx_chart_entries_playlist_track_week,
+    ADD UNIQUE KEY uk_chart_entries_playlist_week_track (playlist_id, week_id, track_id, week_year),
+    ADD UNIQUE KEY uk_chart_entries_playlist_week_position (playlist_id, week_id, position, week_year),
+    ADD INDEX idx_chart_entries_playlist_week_live (playlist_id, week_id, deleted_at, position, track_id),
+    ADD INDEX idx_chart_entries_track_playlist_live (track_id, playlist_id, deleted_at, week_id, position),
+    ADD INDEX idx_chart_entries_playlist_track_live (playlist_id, deleted_at, track_id);
+
+-- ============================================
+-- 4. Partitions, one per year
+-- ============================================
+ALTER TABLE chart_entries
+    PARTITION BY RANGE (week_year) (
+        PARTITION p2019 VALUES LESS THAN (2020),
+        PARTITION p2020 VALUES LESS THAN (2021),
+        PARTITION p2021 VALUES LESS THAN (2022),
+        PARTITION p2022 VALUES LESS THAN (2023),
+        PARTITION p2023 VALUES LESS THAN (2024),
+        PARTITION p2024 VALUES LESS THAN (2025),
+        PARTITION p2025 VALUES LESS THAN (2026),
+        PARTITION p2026 VALUES LESS THAN (2027),
+        PARTITION p2027 VALUES LESS THAN (2028),
+        PARTITION p2028 VALUES LESS THAN (2029),
+        PARTITION p2029 VALUES LESS THAN (2030),
+        PARTITION p2030 VALUES LESS THAN (2031),
+        PARTITION pmax VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,18 @@
+-- Denormalized artist list on tracks, so chart reads need no join to track_artists/artists.
+-- artist_names holds the names in track_artists.position order, separated by the ASCII unit
+-- separator (0x1F). track_artists remains the source of truth: the application rewrites the
+-- column whenever it links an artist to a track.
+
+ALTER TABLE tracks ADD COLUMN artist_names TEXT NULL AFTER image_url;
+
+-- GROUP_CONCAT truncates at 1024 bytes by default
+SET SESSION group_concat_max_len = 65535;
+
+UPDATE tracks t
+JOIN (
+    SELECT ta.track_id, GROUP_CONCAT(a.name ORDER BY ta.position SEPARATOR 0x1F) AS names
+    FROM track_artists ta
+    JOIN artists a ON a.id = ta.artist_id
+    GROUP BY ta.track_id
+) n ON n.track_id = t.id
+SET t.artist_names = n.names;
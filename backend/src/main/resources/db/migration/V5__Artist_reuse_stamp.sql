@@ -0,0 +1,6 @@
+-- Reuse stamp on artists, like tracks.updated_at: an import that reuses an existing artist locks its
+-- row and stamps updated_at before linking it to a track, and compaction only removes orphaned
+-- artists whose stamp is older than the grace period. Without it, compaction could delete an artist
+-- between the import finding it and inserting the track_artists row that refers to it.
+
+ALTER TABLE artists ADD COLUMN updated_at TIMESTAMP NULL AFTER created_at;
@@ -0,0 +1,131 @@
+package com.top50.perf;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.JsonImportRequest;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+import com.top50.service.DatabaseChartService;
+import com.top50.service.JsonChartService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chart reads against the seeded H2 database and the same data as JSON files.
+ *
+ * Every invocation reads another (user, week) or track, visited in a fixed order, so runs are
+ * comparable and the caches see a realistic spread of keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ChartReadBenchmark {
+    @Param({"4"})
+    public int users;
+
+    @Param({"3"})
+    public int years;
+
+    private PerfContext perf;
+    private DatabaseChartService database;
+    private JsonChartService json;
+    private List<String> userNames;
+    private List<String> weeks;
+    private List<String> trackIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        perf = new PerfContext(new SyntheticCharts(users, years), "spring.main.web-application-type=none");
+        database = perf.getBean(DatabaseChartService.class);
+        json = perf.getBean(JsonChartService.class);
+        userNames = perf.getData().getUsers();
+        weeks = perf.getData().getWeeks();
+
+        Set<String> tracks = new LinkedHashSet<>();
+        for (JsonImportRequest chart : perf.getData().generate(userNames.get(0))) {
+            chart.getEntries().forEach(entry -> tracks.add(entry.getTrackId()));
+        }
+        trackIds = new ArrayList<>(tracks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        perf.close();
+    }
+
+    @Benchmark
+    public List<ChartEntryDto> databaseChartByWeek(Cursor cursor) {
+        int i = cursor.next();
+        return database.getChartByWeek(week(i), user(i));
+    }
+
+    @Benchmark
+    public List<ChartEntryDto> databaseDroppedTracks(Cursor cursor) {
+        int i = cursor.next();
+        return database.getDroppedTracks(week(i), user(i));
+    }
+
+    @Benchmark
+    public TrackHistoryDto databaseTrackHistory(Cursor cursor) {
+        return database.getTrackHistory(track(cursor.next()), userNames.get(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TrackDto> databaseAllTracks(Cursor cursor) {
+        return database.getAllTracks(user(cursor.next()));
+    }
+
+    @Benchmark
+    public List<ChartEntryDto> jsonChartByWeek(Cursor cursor) {
+        int i = cursor.next();
+        return json.getChartByWeek(week(i), user(i));
+    }
+
+    @Benchmark
+    public List<ChartEntryDto> jsonDroppedTracks(Cursor cursor) {
+        int i = cursor.next();
+        return json.getDroppedTracks(week(i), user(i));
+    }
+
+    @Benchmark
+    public TrackHistoryDto jsonTrackHistory(Cursor cursor) {
+        return json.getTrackHistory(track(cursor.next()), userNames.get(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TrackDto> jsonAllTracks(Cursor cursor) {
+        return json.getAllTracks(user(cursor.next()));
+    }
+
+    private String user(int i) {
+        return userNames.get(i % userNames.size());
+    }
+
+    private String week(int i) {
+        // Stride through the weeks so consecutive calls do not hit neighbouring weeks
+        return weeks.get((int) ((i * 7919L) % weeks.size()));
+    }
+
+    private String track(int i) {
+        return trackIds.get((int) ((i * 7919L) % trackIds.size()));
+    }
+}
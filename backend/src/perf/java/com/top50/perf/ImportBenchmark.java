@@ -0,0 +1,48 @@
+package com.top50.perf;
+
+import com.top50.dto.JsonImportRequest;
+import com.top50.service.DataImportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * importJsonData for one week of 50 entries, the path behind POST /api/import/json.
+ *
+ * Cycles through a year of weeks for a user of its own; after the first round each call replaces
+ * an existing week, like a re-import.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+    private static final String USER = "importer";
+
+    private PerfContext perf;
+    private DataImportService importService;
+    private List<JsonImportRequest> charts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        perf = new PerfContext(new SyntheticCharts(1, 1), "spring.main.web-application-type=none");
+        importService = perf.getBean(DataImportService.class);
+        charts = new SyntheticCharts(1, 1, 2024, 5000, 0.2, 7L).generate(USER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        perf.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void importWeek() {
+        importService.importJsonData(charts.get(next++ % charts.size()), USER);
+    }
+}
@@ -0,0 +1,57 @@
+package com.top50.perf;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one endpoint recorded by one client thread; merged after the run.
+ */
+class LatencyRecorder {
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getErrors() {
+        return errors;
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    /**
+     * Sorts the recorded latencies; call once, after merging
+     */
+    void sort() {
+        Arrays.sort(nanos, 0, count);
+    }
+
+    /**
+     * Latency at a quantile (0.5, 0.99, ...) in milliseconds, nearest-rank on the sorted latencies
+     */
+    double quantileMillis(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * count) - 1;
+        return nanos[Math.max(0, Math.min(rank, count - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,337 @@
+package com.top50.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.dto.JsonImportRequest;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test replaying the frontend's calls: the week list, a week's chart together with
+ * its dropped tracks, and the history of a track from the chart. The import mix entry adds
+ * re-imports of synthetic weeks (POST /api/import/json) as competing write traffic.
+ *
+ * Boots the application with the perf profile on a random port, seeded with {@link SyntheticCharts},
+ * unless --url points at a running server. Each client picks its next call from the traffic mix and
+ * sends it as soon as the previous one completed (plus --think time). Options:
+ *
+ * <pre>
+ * --clients=32 --duration=60s --warmup=15s --think=0ms
+ * --mix=weeks=1,chart=4,dropped=4,history=2,import=0
+ * --users=4 --years=3                  synthetic data when booting the application
+ * --url=http://host:8080 --user-names=walter,signe   (no import traffic against a running server)
+ * --out=target/loadtest-result.csv
+ * --chart.datasource=memory            any option with a dot is passed to the application
+ * </pre>
+ */
+public class LoadTest {
+    private static final Pattern TRACK_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9A-Za-z]{22})\"");
+    private static final int RECENT_WEEKS = 8;
+
+    enum Endpoint {
+        WEEKS("weeks"),
+        CHART("chart"),
+        DROPPED("dropped"),
+        HISTORY("history"),
+        IMPORT("import");
+
+        final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        int clients = Integer.parseInt(options.getOrDefault("clients", "32"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "15s"));
+        Duration think = DurationStyle.detectAndParse(options.getOrDefault("think", "0ms"));
+        Map<Endpoint, Integer> mix = parseMix(options.getOrDefault("mix", "weeks=1,chart=4,dropped=4,history=2"));
+
+        PerfContext perf = null;
+        String baseUrl = options.get("url");
+        List<String> users;
+        Map<String, List<String>> importBodies = new HashMap<>();
+        if (baseUrl == null) {
+            List<String> properties = new ArrayList<>();
+            properties.add("server.port=0");
+            options.forEach((name, value) -> {
+                if (name.contains(".")) {
+                    properties.add(name + "=" + value);
+                }
+            });
+            SyntheticCharts data = new SyntheticCharts(
+                    Integer.parseInt(options.getOrDefault("users", "4")),
+                    Integer.parseInt(options.getOrDefault("years", "3")));
+            perf = new PerfContext(data, properties.toArray(String[]::new));
+            baseUrl = "http://localhost:" + perf.getContext().getEnvironment().getProperty("local.server.port");
+            users = data.getUsers();
+            if (mix.containsKey(Endpoint.IMPORT)) {
+                ObjectMapper objectMapper = perf.getBean(ObjectMapper.class);
+                for (String user : users) {
+                    List<String> bodies = new ArrayList<>();
+                    for (JsonImportRequest request : data.generate(user)) {
+                        bodies.add(objectMapper.writeValueAsString(request));
+                    }
+                    importBodies.put(user, bodies);
+                }
+            }
+        } else {
+            if (mix.containsKey(Endpoint.IMPORT)) {
+                throw new IllegalArgumentException("Import traffic would overwrite charts on " + baseUrl);
+            }
+            users = List.of(options.getOrDefault("user-names", "walter,signe").split(","));
+        }
+
+        try {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            LoadTest test = new LoadTest(http, baseUrl, users, mix, think, importBodies);
+            test.discoverWeeks();
+            System.out.printf("Load test against %s: %d clients, %s warmup, %s measured, mix %s%n",
+                    baseUrl, clients, warmup, duration, options.getOrDefault("mix", "default"));
+            Map<Endpoint, LatencyRecorder> results = test.run(clients, warmup, duration);
+            report(results, duration, Path.of(options.getOrDefault("out", "target/loadtest-result.csv")));
+        } finally {
+            if (perf != null) {
+                perf.close();
+            }
+        }
+    }
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final List<String> users;
+    private final Endpoint[] weightedEndpoints;
+    private final Duration think;
+    private final Map<String, List<String>> importBodies;
+    private final Map<String, List<String>> weeksByUser = new ConcurrentHashMap<>();
+
+    LoadTest(HttpClient http, String baseUrl, List<String> users, Map<Endpoint, Integer> mix, Duration think,
+             Map<String, List<String>> importBodies) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.think = think;
+        this.importBodies = importBodies;
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> weighted.addAll(Collections.nCopies(weight, endpoint)));
+        this.weightedEndpoints = weighted.toArray(Endpoint[]::new);
+    }
+
+    /**
+     * Load every user's week list once, so clients can pick weeks without a cold start
+     */
+    void discoverWeeks() throws IOException, InterruptedException {
+        for (String user : users) {
+            HttpResponse<String> response = http.send(get("/api/weeks/" + encode(user)), HttpResponse.BodyHandlers.ofString());
+            List<String> weeks = new ArrayList<>();
+            Matcher matcher = Pattern.compile("\"(\\d{4}-W\\d{2})\"").matcher(response.body());
+            while (matcher.find()) {
+                weeks.add(matcher.group(1));
+            }
+            if (weeks.isEmpty()) {
+                throw new IllegalStateException("No weeks for user " + user + " (HTTP " + response.statusCode() + ")");
+            }
+            weeksByUser.put(user, weeks);
+        }
+    }
+
+    Map<Endpoint, LatencyRecorder> run(int clients, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        // One virtual thread per client, so thousands of clients do not need thousands of platform threads
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Map<Endpoint, LatencyRecorder>>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                long seed = i;
+                futures.add(executor.submit(() -> client(new Random(seed), measureFrom, end)));
+            }
+
+            Map<Endpoint, LatencyRecorder> merged = new EnumMap<>(Endpoint.class);
+            for (Future<Map<Endpoint, LatencyRecorder>> future : futures) {
+                future.get().forEach((endpoint, recorder) ->
+                        merged.computeIfAbsent(endpoint, e -> new LatencyRecorder()).merge(recorder));
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Endpoint, LatencyRecorder> client(Random random, long measureFrom, long end) throws InterruptedException {
+        Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+        String user = users.get(random.nextInt(users.size()));
+        String week = pickWeek(user, random);
+        List<String> chartTracks = List.of();
+
+        while (System.nanoTime() < end) {
+            Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+            if (endpoint == Endpoint.HISTORY && chartTracks.isEmpty()) {
+                endpoint = Endpoint.CHART;
+            }
+
+            String path;
+            switch (endpoint) {
+                case WEEKS -> {
+                    // A new visit: another user, starting from the week list
+                    user = users.get(random.nextInt(users.size()));
+                    week = pickWeek(user, random);
+                    chartTracks = List.of();
+                    path = "/api/weeks/" + encode(user);
+                }
+                case CHART -> {
+                    week = pickWeek(user, random);
+                    path = "/api/chart/" + encode(user) + "?week=" + week;
+                }
+                case DROPPED -> path = "/api/chart/" + encode(user) + "/dropped?week=" + week;
+                case IMPORT -> path = "/api/import/json?user=" + encode(user);
+                default -> path = "/api/tracks/" + chartTracks.get(random.nextInt(chartTracks.size()))
+                        + "/history?user=" + encode(user);
+            }
+
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                HttpRequest request = endpoint == Endpoint.IMPORT ? post(path, pickImport(user, random)) : get(path);
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                success = response.statusCode() / 100 == 2;
+                if (success && endpoint == Endpoint.CHART) {
+                    chartTracks = trackIds(response.body());
+                }
+            } catch (IOException e) {
+                success = false;
+            }
+            long finished = System.nanoTime();
+            if (start >= measureFrom) {
+                recorders.computeIfAbsent(endpoint, e -> new LatencyRecorder()).record(finished - start, success);
+            }
+
+            if (!think.isZero()) {
+                Thread.sleep(think.toMillis());
+            }
+        }
+        return recorders;
+    }
+
+    /**
+     * Mostly recent weeks, like visitors browsing the latest charts, otherwise any week
+     */
+    private String pickWeek(String user, Random random) {
+        List<String> weeks = weeksByUser.get(user);
+        int bound = random.nextBoolean() ? Math.min(RECENT_WEEKS, weeks.size()) : weeks.size();
+        return weeks.get(random.nextInt(bound));
+    }
+
+    private String pickImport(String user, Random random) {
+        List<String> bodies = importBodies.get(user);
+        return bodies.get(random.nextInt(bodies.size()));
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private static List<String> trackIds(String chartJson) {
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = TRACK_ID.matcher(chartJson);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] keyValue = part.trim().split("=");
+            Endpoint endpoint = Arrays.stream(Endpoint.values())
+                    .filter(e -> e.key.equals(keyValue[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in mix: " + keyValue[0]));
+            int weight = Integer.parseInt(keyValue[1].trim());
+            if (weight > 0) {
+                weights.put(endpoint, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Traffic mix is empty: " + mix);
+        }
+        return weights;
+    }
+
+    private static void report(Map<Endpoint, LatencyRecorder> results, Duration duration, Path out) throws IOException {
+        double seconds = duration.toMillis() / 1000.0;
+        String header = String.format("%-10s %10s %8s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        System.out.println(header);
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out))) {
+            csv.println("endpoint,requests,errors,throughput,p50_ms,p99_ms,p999_ms,max_ms");
+            LatencyRecorder total = new LatencyRecorder();
+            for (Map.Entry<Endpoint, LatencyRecorder> entry : results.entrySet()) {
+                total.merge(entry.getValue());
+                print(entry.getKey().key, entry.getValue(), seconds, csv);
+            }
+            print("total", total, seconds, csv);
+        }
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    private static void print(String name, LatencyRecorder recorder, double seconds, PrintWriter csv) {
+        recorder.sort();
+        double throughput = recorder.getCount() / seconds;
+        double p50 = recorder.quantileMillis(0.5);
+        double p99 = recorder.quantileMillis(0.99);
+        double p999 = recorder.quantileMillis(0.999);
+        double max = recorder.quantileMillis(1.0);
+        System.out.printf("%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, recorder.getCount(), recorder.getErrors(), throughput, p50, p99, p999, max);
+        csv.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n",
+                name, recorder.getCount(), recorder.getErrors(), throughput, p50, p99, p999, max);
+    }
+}
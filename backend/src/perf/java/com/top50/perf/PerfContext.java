@@ -0,0 +1,70 @@
+package com.top50.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.SpotifyChartsApplication;
+import com.top50.dto.JsonImportRequest;
+import com.top50.service.DataImportService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The application booted with the perf profile (in-memory H2, see application-perf.properties) and
+ * seeded with {@link SyntheticCharts}: every chart is imported through DataImportService and also
+ * written as JSON files for JsonChartService.
+ */
+public class PerfContext implements AutoCloseable {
+    private final SyntheticCharts data;
+    private final Path dataDir;
+    private final ConfigurableApplicationContext context;
+
+    public PerfContext(SyntheticCharts data, String... properties) throws IOException {
+        this.data = data;
+        this.dataDir = Files.createTempDirectory("top50-perf");
+        data.writeJson(dataDir, new ObjectMapper());
+
+        // Seeding goes through importJsonData, never the startup import of data.directory
+        System.setProperty("import.data", "false");
+        this.context = new SpringApplicationBuilder(SpotifyChartsApplication.class)
+                .profiles("perf")
+                .properties("data.directory=" + dataDir)
+                .properties(properties)
+                .run();
+
+        long start = System.nanoTime();
+        DataImportService importService = getBean(DataImportService.class);
+        int weeks = 0;
+        for (String user : data.getUsers()) {
+            List<JsonImportRequest> charts = data.generate(user);
+            for (JsonImportRequest chart : charts) {
+                importService.importJsonData(chart, user);
+            }
+            weeks += charts.size();
+        }
+        System.out.printf("Seeded %d users, %d weeks in %d ms%n",
+                data.getUsers().size(), weeks, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public SyntheticCharts getData() {
+        return data;
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+}
@@ -0,0 +1,146 @@
+package com.top50.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.top50.dto.JsonImportRequest;
+import com.top50.util.SpotifyIds;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.*;
+
+/**
+ * Deterministic synthetic chart data: a number of users with a weekly top 50 over several years.
+ *
+ * Each week keeps most of the previous chart, reshuffled, and replaces the rest with tracks from a
+ * shared catalog, so tracks chart for several weeks and users overlap like real data. The same seed
+ * always gives the same data.
+ */
+public class SyntheticCharts {
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int CHART_SIZE = 50;
+
+    private final int users;
+    private final int years;
+    private final int firstYear;
+    private final int catalogSize;
+    private final double churn;
+    private final long seed;
+
+    public SyntheticCharts(int users, int years) {
+        this(users, years, 2020, 5000, 0.2, 42L);
+    }
+
+    public SyntheticCharts(int users, int years, int firstYear, int catalogSize, double churn, long seed) {
+        this.users = users;
+        this.years = years;
+        this.firstYear = firstYear;
+        this.catalogSize = catalogSize;
+        this.churn = churn;
+        this.seed = seed;
+    }
+
+    public List<String> getUsers() {
+        List<String> names = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            names.add("user" + i);
+        }
+        return names;
+    }
+
+    /**
+     * All weeks of the data set in ascending order
+     */
+    public List<String> getWeeks() {
+        List<String> weeks = new ArrayList<>();
+        for (int year = firstYear; year < firstYear + years; year++) {
+            int weekCount = (int) LocalDate.of(year, 6, 1).range(IsoFields.WEEK_OF_WEEK_BASED_YEAR).getMaximum();
+            for (int week = 1; week <= weekCount; week++) {
+                weeks.add(String.format("%d-W%02d", year, week));
+            }
+        }
+        return weeks;
+    }
+
+    /**
+     * A user's charts, one import request per week in ascending order
+     */
+    public List<JsonImportRequest> generate(String user) {
+        Random random = new Random(seed ^ user.hashCode());
+        List<JsonImportRequest> charts = new ArrayList<>();
+        List<Integer> chart = new ArrayList<>(CHART_SIZE);
+
+        for (String week : getWeeks()) {
+            int keep = chart.isEmpty() ? 0 : (int) Math.round(CHART_SIZE * (1 - churn));
+            Collections.shuffle(chart, random);
+            List<Integer> next = new ArrayList<>(chart.subList(0, Math.min(keep, chart.size())));
+            Set<Integer> present = new HashSet<>(next);
+            while (next.size() < CHART_SIZE) {
+                int track = random.nextInt(catalogSize);
+                if (present.add(track)) {
+                    next.add(track);
+                }
+            }
+            chart = next;
+
+            List<JsonImportRequest.ChartEntry> entries = new ArrayList<>(CHART_SIZE);
+            for (int i = 0; i < chart.size(); i++) {
+                entries.add(entry(i + 1, chart.get(i)));
+            }
+            JsonImportRequest request = new JsonImportRequest();
+            request.setWeek(week);
+            request.setEntries(entries);
+            charts.add(request);
+        }
+        return charts;
+    }
+
+    /**
+     * Write every user's charts as {@code <dataDir>/<user>/<week>.json}, the layout read by JsonChartService
+     */
+    public void writeJson(Path dataDir, ObjectMapper objectMapper) throws IOException {
+        ObjectMapper writer = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        for (String user : getUsers()) {
+            Path userDir = Files.createDirectories(dataDir.resolve(user));
+            for (JsonImportRequest chart : generate(user)) {
+                writer.writeValue(userDir.resolve(chart.getWeek() + ".json").toFile(), chart);
+            }
+        }
+    }
+
+    public static String trackId(int track) {
+        char[] id = new char[SpotifyIds.LENGTH];
+        Arrays.fill(id, '0');
+        long value = Integer.toUnsignedLong(track) * 2654435761L;
+        for (int i = SpotifyIds.LENGTH - 1; i >= 0 && value > 0; i--) {
+            id[i] = BASE62.charAt((int) (value % 62));
+            value /= 62;
+        }
+        id[0] = 'P';
+        return new String(id);
+    }
+
+    private JsonImportRequest.ChartEntry entry(int placement, int track) {
+        JsonImportRequest.ChartEntry entry = new JsonImportRequest.ChartEntry();
+        entry.setPlacement(placement);
+        entry.setTrackId(trackId(track));
+        entry.setTitle("Track " + track);
+        // One to three artists from a pool a tenth the size of the catalog
+        Random random = new Random(track);
+        int artistCount = 1 + random.nextInt(3);
+        List<String> artists = new ArrayList<>(artistCount);
+        for (int i = 0; i < artistCount; i++) {
+            String artist = "Artist " + random.nextInt(Math.max(1, catalogSize / 10));
+            if (!artists.contains(artist)) {
+                artists.add(artist);
+            }
+        }
+        entry.setArtists(artists);
+        entry.setSpotifyUrl(SpotifyIds.toTrackUrl(entry.getTrackId()));
+        entry.setImageUrl("https://i.scdn.co/image/" + entry.getTrackId());
+        return entry;
+    }
+}
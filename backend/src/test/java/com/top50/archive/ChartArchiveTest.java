@@ -0,0 +1,128 @@
+package com.top50.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.JsonImportRequest;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+import com.top50.service.JsonChartService;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Charts written with {@link ChartArchiveWriter} read back unchanged by {@link ChartArchiveReader},
+ * and JsonChartService falling back to the JSON files once a week file is newer than the archive
+ */
+class ChartArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void emptyArchive() throws IOException {
+        ChartArchiveReader reader = roundTrip(new ChartArchiveWriter());
+
+        assertThat(reader.getAllWeeks()).isEmpty();
+        assertThat(reader.getAllTracks()).isEmpty();
+        assertThat(reader.weekIndex("2024-W01")).isEqualTo(-1);
+        assertThat(reader.findTrack(TestCharts.trackId(1))).isEqualTo(-1);
+    }
+
+    @Test
+    void chartsAcrossYears() throws IOException {
+        TrackDto first = track(1, "Artist 1", "Artist 2");
+        TrackDto second = track(2, "Artist 2");
+        ChartArchiveWriter writer = new ChartArchiveWriter();
+        writer.addWeek("2020-W53", List.of(entry("2020-W53", 1, first, null)));
+        writer.addWeek("2021-W01", List.of(entry("2021-W01", 1, second, null), entry("2021-W01", 2, first, 1)));
+        writer.addWeek("2022-W52", List.of(entry("2022-W52", 1, first, null)));
+
+        ChartArchiveReader reader = roundTrip(writer);
+
+        assertThat(reader.getAllWeeks()).containsExactly("2020-W53", "2021-W01", "2022-W52");
+        assertThat(reader.weekIndex("2021-W01")).isEqualTo(1);
+        assertThat(reader.weekIndex("2021-W53")).isEqualTo(-1);
+        assertThat(reader.getChart(1)).containsExactly(
+            entry("2021-W01", 1, second, null), entry("2021-W01", 2, first, 1));
+        assertThat(reader.getAllTracks()).containsExactly(first, second);
+
+        TrackHistoryDto history = reader.getTrackHistory(reader.findTrack(first.getId()));
+        assertThat(history.getTrack()).isEqualTo(first);
+        assertThat(history.getHistory()).containsExactly(
+            new TrackHistoryDto.PositionPoint("2020-W53", 1),
+            new TrackHistoryDto.PositionPoint("2021-W01", 2),
+            new TrackHistoryDto.PositionPoint("2022-W52", 1));
+    }
+
+    @Test
+    void missingTextIsStoredAsEmpty() throws IOException {
+        TrackDto track = new TrackDto(TestCharts.trackId(3), null, Arrays.asList("Artist 3", null), null);
+        ChartArchiveWriter writer = new ChartArchiveWriter();
+        writer.addWeek("2024-W01", List.of(entry("2024-W01", 1, track, null)));
+
+        TrackDto read = roundTrip(writer).getAllTracks().get(0);
+
+        assertThat(read.getTitle()).isEmpty();
+        assertThat(read.getArtists()).containsExactly("Artist 3", "");
+        assertThat(read.getImageUrl()).isNull();
+    }
+
+    /**
+     * Rewriting a week file in place leaves the directory's mtime alone; the file's own mtime must
+     * still take the reads back to JSON
+     */
+    @Test
+    void weekFileRewrittenAfterTheArchive() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        TestCharts charts = new TestCharts(1, 3);
+        charts.writeJson(directory, objectMapper);
+        JsonChartService jsonChartService = new JsonChartService(objectMapper);
+        ReflectionTestUtils.setField(jsonChartService, "dataDirectory", directory.toString());
+        ReflectionTestUtils.setField(jsonChartService, "archiveEnabled", true);
+        ReflectionTestUtils.setField(jsonChartService, "archiveCheckInterval", Duration.ZERO);
+
+        String user = charts.getUsers().get(0);
+        String week = charts.getWeeks(user).get(0);
+        Path archive = jsonChartService.writeArchive(user);
+        assertThat(jsonChartService.getChartByWeek(week, user)).isEqualTo(
+            ChartArchiveReader.open(archive).getChart(0));
+
+        Path weekFile = directory.resolve(user).resolve(week + ".json");
+        FileTime directoryModified = Files.getLastModifiedTime(directory.resolve(user));
+        JsonImportRequest chart = objectMapper.readValue(weekFile.toFile(), JsonImportRequest.class);
+        chart.getEntries().get(0).setTitle("Renamed");
+        objectMapper.writeValue(weekFile.toFile(), chart);
+        Files.setLastModifiedTime(weekFile, FileTime.from(
+            Files.getLastModifiedTime(archive).toInstant().plusSeconds(60)));
+
+        assertThat(Files.getLastModifiedTime(directory.resolve(user))).isEqualTo(directoryModified);
+        assertThat(jsonChartService.getChartByWeek(week, user).get(0).getTrack().getTitle()).isEqualTo("Renamed");
+    }
+
+    private ChartArchiveReader roundTrip(ChartArchiveWriter writer) throws IOException {
+        Path path = directory.resolve("user.chartarchive");
+        writer.write(path);
+        return ChartArchiveReader.open(path);
+    }
+
+    private static TrackDto track(int number, String... artists) {
+        String id = TestCharts.trackId(number);
+        return new TrackDto(id, "Track " + number, List.of(artists), "https://i.scdn.co/image/" + id);
+    }
+
+    private static ChartEntryDto entry(String week, int position, TrackDto track, Integer previousPosition) {
+        return new ChartEntryDto(week, position, track, previousPosition);
+    }
+}
@@ -0,0 +1,140 @@
+package com.top50.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two in-memory H2 databases standing in for the primary and the replica. Each
+ * database holds a row naming itself, so a query shows which one served it.
+ */
+@SpringBootTest(classes = ReadReplicaRoutingTest.RoutingConfig.class, properties = {
+    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+    "spring.datasource.replica.lag-query=SELECT lag_seconds FROM replica_status",
+    "spring.datasource.replica.max-lag=5s",
+    "spring.datasource.replica.check-interval=1h"
+})
+class ReadReplicaRoutingTest {
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @Import(DataSourceRoutingConfig.class)
+    static class RoutingConfig {
+    }
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createDatabases() {
+        for (String name : new String[] {"primary", "replica"}) {
+            JdbcTemplate jdbc = new JdbcTemplate(name.equals("primary") ? primary : replica);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS server_name (name VARCHAR(20))");
+            jdbc.execute("DELETE FROM server_name");
+            jdbc.update("INSERT INTO server_name VALUES (?)", name);
+        }
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE IF NOT EXISTS replica_status (lag_seconds DOUBLE)");
+        replicaJdbc.execute("DELETE FROM replica_status");
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        setReplicaLag(0);
+
+        assertThat(serverName(true)).isEqualTo("replica");
+        assertThat(serverName(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        setReplicaLag(0);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            jdbcTemplate.update("UPDATE server_name SET name = 'primary-written'"));
+
+        assertThat(new JdbcTemplate(primary).queryForObject("SELECT name FROM server_name", String.class))
+            .isEqualTo("primary-written");
+        assertThat(serverName(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaLags() {
+        setReplicaLag(60);
+
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(serverName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaIsNotReplicating() {
+        new JdbcTemplate(replica).update("INSERT INTO replica_status VALUES (NULL)");
+        lagMonitor.check();
+
+        assertThat(serverName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsAfterAWriteCanBeForcedToThePrimary() {
+        setReplicaLag(0);
+
+        assertThat(ReadWriteRoutingDataSource.onPrimary(() -> serverName(true))).isEqualTo("primary");
+        assertThat(serverName(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void theReplicaIsNotUsedWithoutALagQuery() {
+        try (ReplicaLagMonitor withoutLagQuery = new ReplicaLagMonitor(replica, "", Duration.ofSeconds(5), Duration.ofHours(1))) {
+            withoutLagQuery.check();
+
+            assertThat(withoutLagQuery.isReplicaUsable()).isFalse();
+        }
+    }
+
+    private void setReplicaLag(double seconds) {
+        new JdbcTemplate(replica).update("INSERT INTO replica_status VALUES (?)", seconds);
+        lagMonitor.check();
+    }
+
+    private String serverName(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server_name", String.class));
+    }
+}
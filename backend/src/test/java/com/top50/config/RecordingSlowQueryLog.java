@@ -0,0 +1,35 @@
+package com.top50.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Slow-query log with a zero threshold that keeps every statement with its bound parameters, so
+ * tests can inspect the SQL Hibernate generated
+ */
+public class RecordingSlowQueryLog extends SlowQueryLog {
+    public record Statement(String sql, List<Object> parameters) {
+    }
+
+    private final List<Statement> statements = new ArrayList<>();
+
+    public RecordingSlowQueryLog() {
+        super(true, Duration.ZERO, 1.0);
+    }
+
+    @Override
+    synchronized void logSlow(String sql, Map<Integer, Object> parameters, long nanos) {
+        statements.add(new Statement(sql, new ArrayList<>(new TreeMap<>(parameters).values())));
+    }
+
+    public synchronized List<Statement> getStatements() {
+        return List.copyOf(statements);
+    }
+
+    public synchronized void clear() {
+        statements.clear();
+    }
+}
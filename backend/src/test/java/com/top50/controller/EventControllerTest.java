@@ -0,0 +1,65 @@
+package com.top50.controller;
+
+import com.top50.service.DataImportService;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Subscriptions to /api/events the way an EventSource opens them: only for existing users, and at
+ * most events.max-subscriptions-per-user at a time
+ */
+@SpringBootTest(properties = {"events.max-subscriptions-per-user=2", "events.max-subscriptions=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EventControllerTest {
+    private static final TestCharts CHARTS = new TestCharts(2, 2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @BeforeAll
+    void seed() {
+        CHARTS.importInto(dataImportService);
+    }
+
+    @Test
+    void unknownUsersCannotBeSubscribedTo() throws Exception {
+        mockMvc.perform(get("/api/events/nobody").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void subscriptionsOverTheCapsAreRejected() throws Exception {
+        subscribe("user0");
+        subscribe("user0");
+        mockMvc.perform(get("/api/events/user0").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().exists("Retry-After"));
+
+        subscribe("user1");
+        mockMvc.perform(get("/api/events/user1").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isServiceUnavailable());
+    }
+
+    private void subscribe(String user) throws Exception {
+        mockMvc.perform(get("/api/events/" + user).accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted());
+    }
+}
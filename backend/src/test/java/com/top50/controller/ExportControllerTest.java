@@ -0,0 +1,109 @@
+package com.top50.controller;
+
+import com.top50.config.Bulkheads;
+import com.top50.service.ChartExportService;
+import com.top50.service.DataImportService;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The export permit (bulkhead.export.max-concurrent=1) is given back whether or not the streamed
+ * body runs; a leaked permit would turn the next export into a 503 after bulkhead.max-wait
+ */
+@SpringBootTest(properties = {"bulkhead.export.max-concurrent=1", "bulkhead.max-wait=100ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportControllerTest {
+    private static final TestCharts CHARTS = new TestCharts(1, 2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @Autowired
+    private ChartExportService chartExportService;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @BeforeAll
+    void seed() {
+        CHARTS.importInto(dataImportService);
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void fullBulkheadIsRejectedBeforeTheResponseStarts() throws Exception {
+        try (Bulkheads.Permit permit = bulkheads.acquire("export")) {
+            mockMvc.perform(get("/api/export/user0").param("format", "csv"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+        }
+    }
+
+    @Test
+    void permitIsReleasedWhenTheRequestEndsBeforeStreaming() {
+        ServletRequestAttributes attributes = requestAttributes();
+        chartExportService.export("user0", ChartExportService.Format.CSV);
+
+        attributes.requestCompleted();
+
+        bulkheads.acquire("export").close();
+    }
+
+    @Test
+    void permitIsReleasedWhenTheAsyncRequestEndsBeforeStreaming() throws Exception {
+        ServletRequestAttributes attributes = requestAttributes();
+        MockHttpServletRequest request = (MockHttpServletRequest) attributes.getRequest();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, attributes.getResponse()));
+        chartExportService.export("user0", ChartExportService.Format.CSV);
+
+        // The body is handed to an executor that never runs it, then the async request ends (e.g. timed out)
+        asyncManager.startCallableProcessing(new WebAsyncTask<>(1000L, new SimpleAsyncTaskExecutor() {
+            @Override
+            public void execute(Runnable task) {
+            }
+        }, () -> null));
+        attributes.requestCompleted();
+        request.getAsyncContext().complete();
+
+        bulkheads.acquire("export").close();
+    }
+
+    private static ServletRequestAttributes requestAttributes() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/export/user0");
+        request.setAsyncSupported(true);
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request, new MockHttpServletResponse());
+        RequestContextHolder.setRequestAttributes(attributes);
+        return attributes;
+    }
+}
@@ -0,0 +1,251 @@
+package com.top50.repository;
+
+import com.top50.config.RecordingSlowQueryLog;
+import com.top50.config.SlowQueryLog;
+import com.top50.entity.Playlist;
+import com.top50.entity.Track;
+import com.top50.entity.Week;
+import com.top50.service.CompactionService;
+import com.top50.service.DataImportService;
+import com.top50.service.EntityCacheService;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN of the SQL Hibernate generates for the chart_entries queries of ChartEntryRepository, run
+ * against MySQL with the Flyway schema (partitioned by week year, covering indexes of V3). Each
+ * query must use its index on chart_entries, read one partition when the week year is known and
+ * stay inside the index when it only needs indexed columns.
+ *
+ * Needs a scratch MySQL or MariaDB database, which is cleaned, migrated and filled:
+ * TEST_MYSQL_URL=jdbc:mysql://localhost:3306/top50_test mvn test -Dtest=ChartEntryQueryPlanTest
+ * (TEST_MYSQL_USERNAME and TEST_MYSQL_PASSWORD default to top50/top50password). Skipped without it.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=${TEST_MYSQL_URL}",
+    "spring.datasource.username=${TEST_MYSQL_USERNAME:top50}",
+    "spring.datasource.password=${TEST_MYSQL_PASSWORD:top50password}",
+    "spring.jpa.properties.hibernate.use_sql_comments=false",
+    "chart.warmup.enabled=false",
+    "compaction.retention=0s",
+    "compaction.orphan-grace=0s",
+    "import.data=false",
+    "data.directory=target/test-data",
+    "logging.level.com.top50=WARN"
+})
+@EnabledIfEnvironmentVariable(named = "TEST_MYSQL_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChartEntryQueryPlanTest {
+    private static final TestCharts CHARTS = new TestCharts(3, 52);
+    private static final String USER = "user0";
+
+    // Indexes led by (playlist_id, week_id); which one the optimizer takes depends on the statistics
+    private static final Set<String> PLAYLIST_WEEK_KEYS = Set.of("idx_chart_entries_playlist_week_live",
+        "uk_chart_entries_playlist_week_track", "uk_chart_entries_playlist_week_position");
+
+    private static final Pattern CHART_ENTRIES_ALIAS = Pattern.compile("chart_entries\\s+(\\w+)");
+
+    @TestConfiguration
+    static class RecordingConfig {
+        @Bean
+        @Primary
+        SlowQueryLog recordingSlowQueryLog() {
+            return new RecordingSlowQueryLog();
+        }
+    }
+
+    @Autowired
+    private ChartEntryRepository chartEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Autowired
+    private WeekRepository weekRepository;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @Autowired
+    private CompactionService compactionService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Playlist playlist;
+    private Week week;
+    private Track track;
+    private String explain;
+
+    @BeforeAll
+    void seed() {
+        CHARTS.importInto(dataImportService);
+        jdbcTemplate.execute("ANALYZE TABLE chart_entries, tracks, weeks");
+
+        playlist = playlistRepository.findByUserAndDeletedAtIsNull(userRepository.findByUsername(USER).orElseThrow()).get(0);
+        week = weekRepository.findByIsoFormat(CHARTS.getWeeks(USER).get(10)).orElseThrow();
+        track = chartEntryRepository.findByPlaylistAndWeekOrderByPosition(playlist, week).get(0).getTrack();
+        // MySQL 8 always reports partitions, MariaDB only with EXPLAIN PARTITIONS
+        explain = jdbcTemplate.queryForObject("SELECT VERSION()", String.class).contains("MariaDB")
+            ? "EXPLAIN PARTITIONS " : "EXPLAIN ";
+    }
+
+    @Test
+    void chartOfAWeek() {
+        Map<String, Object> plan = plan(() -> chartEntryRepository.findByPlaylistAndWeekOrderByPosition(playlist, week));
+
+        assertLookup(plan, PLAYLIST_WEEK_KEYS);
+        assertThat(extra(plan)).doesNotContain("Using filesort");
+        assertOnePartition(plan);
+    }
+
+    @Test
+    void entriesOfAWeek() {
+        for (Runnable query : List.<Runnable>of(
+                () -> chartEntryRepository.findByPlaylistAndWeek(playlist, week),
+                () -> chartEntryRepository.findByPlaylistAndWeekNotDeleted(playlist, week),
+                () -> chartEntryRepository.findByPlaylistAndTrackAndWeekAndDeletedAtIsNull(playlist, track, week))) {
+            Map<String, Object> plan = plan(query);
+            assertLookup(plan, PLAYLIST_WEEK_KEYS);
+            assertOnePartition(plan);
+        }
+    }
+
+    @Test
+    void weeksOfAPlaylist() {
+        assertLookup(plan(() -> chartEntryRepository.findDistinctWeeksByPlaylist(playlist)), PLAYLIST_WEEK_KEYS);
+
+        Map<String, Object> charted = plan(() -> chartEntryRepository.findChartedWeekIds(playlist, List.of(week.getId())));
+        assertLookup(charted, PLAYLIST_WEEK_KEYS);
+        assertIndexOnly(charted);
+    }
+
+    @Test
+    void chartRowsOfAPlaylist() {
+        assertLookup(plan(() -> chartEntryRepository.findChartRowsByPlaylist(playlist)), PLAYLIST_WEEK_KEYS);
+
+        assertLookup(plan(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<Object[]> stream = chartEntryRepository.streamExportRows(playlist.getId())) {
+                stream.forEach(row -> { });
+            }
+        })), PLAYLIST_WEEK_KEYS);
+    }
+
+    @Test
+    void historyOfATrack() {
+        Map<String, Object> plan = plan(() -> chartEntryRepository.findByTrackAndPlaylistOrderByWeek(track, playlist));
+
+        assertLookup(plan, Set.of("idx_chart_entries_track_playlist_live", "idx_chart_entries_playlist_track_live"));
+        // Track, playlist and deleted_at all come from the index
+        assertThat(plan.get("ref")).isEqualTo("const,const,const");
+    }
+
+    @Test
+    void tracksOfAPlaylist() {
+        Map<String, Object> plan = plan(() -> chartEntryRepository.findDistinctTracksByPlaylist(playlist));
+
+        assertLookup(plan, Set.of("idx_chart_entries_playlist_track_live"));
+        assertIndexOnly(plan);
+    }
+
+    /**
+     * chart_entries has no foreign keys since V3; the references are kept valid by the application,
+     * including when compaction purges entries and the tracks they leave orphaned
+     */
+    @Test
+    void compactionLeavesNoDanglingReferences() {
+        List<String> weeks = CHARTS.getWeeks("user2");
+        dataImportService.deleteChartEntriesForWeekRange(weeks.get(0), weeks.get(weeks.size() - 1), "user2");
+        compactionService.compact();
+
+        assertThat(jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM chart_entries ce
+            LEFT JOIN tracks t ON t.id = ce.track_id
+            LEFT JOIN weeks w ON w.id = ce.week_id
+            LEFT JOIN playlists p ON p.id = ce.playlist_id
+            WHERE t.id IS NULL OR w.id IS NULL OR p.id IS NULL""", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM track_artists ta LEFT JOIN tracks t ON t.id = ta.track_id WHERE t.id IS NULL",
+            Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM track_artists ta LEFT JOIN artists a ON a.id = ta.artist_id WHERE a.id IS NULL",
+            Integer.class)).isZero();
+    }
+
+    /**
+     * Run a repository call and EXPLAIN its last chart_entries statement with the parameters it was
+     * executed with; returns the plan row of chart_entries
+     */
+    private Map<String, Object> plan(Runnable query) {
+        RecordingSlowQueryLog recorder = (RecordingSlowQueryLog) slowQueryLog;
+        entityCacheService.evictAll();
+        recorder.clear();
+        query.run();
+
+        RecordingSlowQueryLog.Statement statement = recorder.getStatements().stream()
+            .filter(recorded -> CHART_ENTRIES_ALIAS.matcher(recorded.sql()).find())
+            .reduce((first, second) -> second)
+            .orElseThrow(() -> new AssertionError("No chart_entries statement executed"));
+        Matcher alias = CHART_ENTRIES_ALIAS.matcher(statement.sql());
+        alias.find();
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(explain + statement.sql(), statement.parameters().toArray());
+        return rows.stream()
+            .filter(row -> alias.group(1).equals(row.get("table")))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No plan row for chart_entries in " + rows));
+    }
+
+    private static String extra(Map<String, Object> plan) {
+        return String.valueOf(plan.get("Extra"));
+    }
+
+    /**
+     * chart_entries is read through one of the keys, not scanned
+     */
+    private static void assertLookup(Map<String, Object> plan, Set<String> keys) {
+        assertThat(plan.get("type")).as("access type in %s", plan).isIn("const", "eq_ref", "ref", "range");
+        assertThat(plan.get("key")).as("key in %s", plan).isIn(keys.toArray());
+    }
+
+    // "Using index condition" is index condition pushdown, which still reads the rows
+    private static void assertIndexOnly(Map<String, Object> plan) {
+        assertThat(extra(plan)).as("index-only scan in %s", plan).containsPattern("Using index(?! condition)");
+    }
+
+    private static void assertOnePartition(Map<String, Object> plan) {
+        assertThat(String.valueOf(plan.get("partitions"))).as("partitions in %s", plan).doesNotContain(",");
+    }
+}
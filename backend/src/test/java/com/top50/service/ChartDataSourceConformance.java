@@ -0,0 +1,138 @@
+package com.top50.service;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Runs the same queries against every available {@link ChartDataSource} and compares results and
+ * latency with a reference backend (the database when available, otherwise the active one).
+ *
+ * Results are compared on ids, positions and weeks, so differences in DTO details such as list
+ * order of all tracks do not count as mismatches. Used by {@link ChartDataSourceConformanceTest}.
+ */
+@RequiredArgsConstructor
+class ChartDataSourceConformance {
+    private final ChartDataSources chartDataSources;
+
+    Report run(String user, int maxWeeks, int maxTracks, int runs) {
+        List<ChartDataSource> dataSources = chartDataSources.all();
+        ChartDataSource reference = chartDataSources.find("database").orElse(chartDataSources.active());
+
+        List<QueryResult> queries = new ArrayList<>();
+        queries.add(compare("weeks", dataSources, reference, runs, dataSource -> dataSource.getAllWeeks(user)));
+
+        for (String week : sample(reference.getAllWeeks(user), maxWeeks)) {
+            queries.add(compare("chart " + week, dataSources, reference, runs,
+                dataSource -> chartKeys(dataSource.getChartByWeek(week, user))));
+            queries.add(compare("dropped " + week, dataSources, reference, runs,
+                dataSource -> droppedKeys(dataSource.getDroppedTracks(week, user))));
+        }
+
+        queries.add(compare("tracks", dataSources, reference, runs,
+            dataSource -> trackKeys(dataSource.getAllTracks(user))));
+
+        List<String> trackIds = reference.getAllTracks(user).stream().map(TrackDto::getId).sorted().toList();
+        for (String trackId : sample(trackIds, maxTracks)) {
+            queries.add(compare("history " + trackId, dataSources, reference, runs,
+                dataSource -> historyKeys(dataSource.getTrackHistory(trackId, user))));
+        }
+
+        Map<String, Double> totalMillis = new LinkedHashMap<>();
+        for (QueryResult query : queries) {
+            query.millis().forEach((name, millis) -> totalMillis.merge(name, millis, Double::sum));
+        }
+        return new Report(reference.getName(), totalMillis, queries);
+    }
+
+    private QueryResult compare(String query, List<ChartDataSource> dataSources,
+                                                     ChartDataSource reference, int runs,
+                                                     Function<ChartDataSource, Object> call) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        Map<String, Object> results = new HashMap<>();
+        for (ChartDataSource dataSource : dataSources) {
+            long fastest = Long.MAX_VALUE;
+            Object result = null;
+            for (int run = 0; run < Math.max(runs, 1); run++) {
+                long start = System.nanoTime();
+                try {
+                    result = call.apply(dataSource);
+                } catch (RuntimeException e) {
+                    // Failing the same way counts as conforming
+                    result = "error: " + e.getClass().getSimpleName();
+                }
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+            millis.put(dataSource.getName(), fastest / 1_000_000.0);
+            results.put(dataSource.getName(), result);
+        }
+
+        Object expected = results.get(reference.getName());
+        List<String> mismatches = new ArrayList<>();
+        results.forEach((name, result) -> {
+            if (!Objects.equals(result, expected)) {
+                mismatches.add(name);
+            }
+        });
+        return new QueryResult(query, millis, mismatches);
+    }
+
+    /**
+     * Up to max items spread evenly over the list
+     */
+    private static List<String> sample(List<String> items, int max) {
+        if (items.size() <= max) {
+            return items;
+        }
+        List<String> sample = new ArrayList<>(max);
+        for (int i = 0; i < max; i++) {
+            sample.add(items.get((int) ((long) i * items.size() / max)));
+        }
+        return sample;
+    }
+
+    private static List<String> chartKeys(List<ChartEntryDto> entries) {
+        return entries.stream()
+            .map(entry -> entry.getPosition() + " " + entry.getTrack().getId() + " " + entry.getPreviousPosition())
+            .toList();
+    }
+
+    private static List<String> droppedKeys(List<ChartEntryDto> entries) {
+        return entries.stream()
+            .map(entry -> entry.getPosition() + " " + entry.getTrack().getId())
+            .toList();
+    }
+
+    private static Set<String> trackKeys(List<TrackDto> tracks) {
+        Set<String> keys = new TreeSet<>();
+        for (TrackDto track : tracks) {
+            keys.add(track.getId() + " " + track.getTitle() + " " + track.getArtists());
+        }
+        return keys;
+    }
+
+    private static List<String> historyKeys(TrackHistoryDto history) {
+        List<String> keys = new ArrayList<>();
+        keys.add(history.getTrack().getId());
+        history.getHistory().forEach(point -> keys.add(point.getWeek() + " " + point.getPosition()));
+        return keys;
+    }
+
+    /**
+     * @param reference Data source the others are compared against
+     * @param totalMillis Sum of the fastest run of every query, per data source
+     */
+    record Report(String reference, Map<String, Double> totalMillis, List<QueryResult> queries) {
+    }
+
+    /**
+     * @param millis Fastest run per data source
+     * @param mismatches Data sources whose result differs from the reference
+     */
+    record QueryResult(String query, Map<String, Double> millis, List<String> mismatches) {
+    }
+}
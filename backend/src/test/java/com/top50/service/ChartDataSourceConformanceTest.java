@@ -0,0 +1,78 @@
+package com.top50.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The same charts imported into the database and written as JSON files; every chart data source
+ * must answer the conformance queries like the database. Latency per data source is logged.
+ */
+@SpringBootTest(properties = "chart.datasource=memory")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChartDataSourceConformanceTest {
+    private static final Logger log = LoggerFactory.getLogger(ChartDataSourceConformanceTest.class);
+
+    private static final TestCharts CHARTS = new TestCharts(2, 12);
+    private static final Path DATA_DIRECTORY = TestCharts.createDataDirectory();
+
+    @DynamicPropertySource
+    static void dataDirectory(DynamicPropertyRegistry registry) {
+        registry.add("data.directory", DATA_DIRECTORY::toString);
+    }
+
+    @Autowired
+    private ChartDataSources chartDataSources;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void seed() throws IOException {
+        CHARTS.writeJson(DATA_DIRECTORY, objectMapper);
+        CHARTS.importInto(dataImportService);
+    }
+
+    @Test
+    void everyDataSourceIsAvailable() {
+        assertThat(chartDataSources.all()).extracting(ChartDataSource::getName)
+            .containsExactlyInAnyOrder("database", "json", "memory");
+    }
+
+    @ParameterizedTest
+    @MethodSource("users")
+    void dataSourcesAnswerLikeTheDatabase(String user) {
+        ChartDataSourceConformance.Report report = new ChartDataSourceConformance(chartDataSources).run(user, 12, 20, 3);
+
+        log.info("Conformance for {}: total ms per data source {}", user, report.totalMillis());
+        assertThat(report.reference()).isEqualTo("database");
+        assertThat(report.queries()).hasSizeGreaterThan(2);
+        assertThat(report.queries()).allSatisfy(query ->
+            assertThat(query.mismatches()).as(query.query()).isEmpty());
+    }
+
+    static List<String> users() {
+        return CHARTS.getUsers();
+    }
+}
@@ -0,0 +1,99 @@
+package com.top50.service;
+
+import com.top50.dto.ChartEntryDto;
+import com.top50.dto.TrackDto;
+import com.top50.dto.TrackHistoryDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Caching of week lists by data source: cached until a {@link ChartDataChangedEvent} for sources
+ * that publish one, not cached for the JSON files
+ */
+class ChartReadCacheTest {
+
+    @Test
+    void databaseReadsAreCachedUntilTheDataChanges() {
+        CountingSource source = new CountingSource("database", true);
+        ChartReadCache cache = cacheServing(source);
+
+        cache.getAllWeeks("walter");
+        cache.getAllWeeks("walter");
+        assertThat(source.reads).isEqualTo(1);
+
+        cache.onChartDataChanged(new ChartDataChangedEvent("walter", "2026-W05"));
+        cache.getAllWeeks("walter");
+        assertThat(source.reads).isEqualTo(2);
+    }
+
+    @Test
+    void jsonReadsAreNotCached() {
+        CountingSource source = new CountingSource("json", false);
+        ChartReadCache cache = cacheServing(source);
+
+        cache.getAllWeeks("walter");
+        cache.getAllWeeks("walter");
+        assertThat(source.reads).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    private static ChartReadCache cacheServing(ChartDataSource source) {
+        ChartDataSources dataSources = new ChartDataSources(List.of(source));
+        ReflectionTestUtils.setField(dataSources, "selected", source.getName());
+        dataSources.select();
+        return new ChartReadCache(dataSources, new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10), Duration.ofSeconds(15));
+    }
+
+    private static class CountingSource implements ChartDataSource {
+        final String name;
+        final boolean publishesChanges;
+        int reads;
+
+        CountingSource(String name, boolean publishesChanges) {
+            this.name = name;
+            this.publishesChanges = publishesChanges;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean publishesChanges() {
+            return publishesChanges;
+        }
+
+        @Override
+        public List<String> getAllWeeks(String username) {
+            reads++;
+            return List.of("2026-W05", "2026-W04");
+        }
+
+        @Override
+        public List<ChartEntryDto> getChartByWeek(String weekIso, String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ChartEntryDto> getDroppedTracks(String weekIso, String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TrackHistoryDto getTrackHistory(String trackId, String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<TrackDto> getAllTracks(String username) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.top50.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.config.QueryBudgetAspect;
+import com.top50.config.SqlStatementCounter;
+import com.top50.dto.JsonImportRequest;
+import com.top50.entity.Artist;
+import com.top50.entity.Playlist;
+import com.top50.entity.Track;
+import com.top50.entity.Week;
+import com.top50.repository.PlaylistRepository;
+import com.top50.repository.TrackRepository;
+import com.top50.repository.UserRepository;
+import com.top50.repository.WeekRepository;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.aspectj.AspectJPrecedenceInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.interceptor.BeanFactoryTransactionAttributeSourceAdvisor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL statements per call of the public DatabaseChartService and DataImportService methods, with a
+ * cold second-level cache. The counts are baselines: a change that adds statements fails here and
+ * has to update the baseline on purpose. Budgets run in fail mode, so going over a @QueryBudget
+ * fails too.
+ */
+@SpringBootTest(properties = "query.budget.mode=fail")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementCountTest {
+    private static final TestCharts CHARTS = new TestCharts(2, 6);
+    private static final String USER = "user0";
+
+    @Autowired
+    private DatabaseChartService databaseChartService;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Autowired
+    private WeekRepository weekRepository;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void seed() {
+        CHARTS.importInto(dataImportService);
+    }
+
+    @BeforeEach
+    void coldCache() {
+        entityCacheService.evictAll();
+    }
+
+    @Test
+    void queryBudgetsRunInsideTheTransaction() {
+        List<Advisor> advisors = Arrays.asList(((Advised) databaseChartService).getAdvisors());
+        int transaction = indexOf(advisors, advisor -> advisor instanceof BeanFactoryTransactionAttributeSourceAdvisor);
+        int budget = indexOf(advisors, advisor -> advisor instanceof AspectJPrecedenceInformation precedence
+            && precedence.getAspectName().equals("queryBudgetAspect"));
+
+        assertThat(transaction).isNotNegative();
+        assertThat(budget).isGreaterThan(transaction);
+        assertThat(QueryBudgetAspect.ORDER).isGreaterThan(((BeanFactoryTransactionAttributeSourceAdvisor) advisors.get(transaction)).getOrder());
+    }
+
+    @Test
+    void chartReads() {
+        String week = CHARTS.getWeeks(USER).get(3);
+        String track = firstTrack(week);
+
+        assertThat(statements(() -> databaseChartService.getAllWeeks(USER))).isEqualTo(3);
+        assertThat(statements(() -> databaseChartService.getChartByWeek(week, USER))).isEqualTo(5);
+        assertThat(statements(() -> databaseChartService.getTrackHistory(track, USER))).isEqualTo(4);
+        assertThat(statements(() -> databaseChartService.getDroppedTracks(week, USER))).isEqualTo(5);
+        assertThat(statements(() -> databaseChartService.getAllTracks(USER))).isEqualTo(3);
+    }
+
+    /**
+     * The three statements of the method's budget, then one more after the commit, when the
+     * search index reloads the user's tracks
+     */
+    @Test
+    void softDeletes() {
+        List<String> weeks = CHARTS.getWeeks(USER);
+        String first = weeks.get(0);
+        String last = weeks.get(weeks.size() - 1);
+
+        assertThat(statements(() -> dataImportService.deleteChartEntriesForWeek(first, USER))).isEqualTo(4);
+        assertThat(statements(() -> dataImportService.restoreChartEntriesForWeek(first, USER))).isEqualTo(4);
+        assertThat(statements(() -> dataImportService.deleteChartEntriesForWeekRange(first, last, USER))).isEqualTo(4);
+        assertThat(statements(() -> dataImportService.restoreChartEntriesForWeekRange(first, last, USER))).isEqualTo(4);
+        assertThat(statements(() -> dataImportService.deleteChartEntriesForPlaylist(USER))).isEqualTo(4);
+        assertThat(statements(() -> dataImportService.restoreChartEntriesForPlaylist(USER))).isEqualTo(4);
+    }
+
+    /**
+     * Linear in the chart size (lookups, a locked reuse stamp and inserts per entry and artist), so the
+     * baseline is for a chart of 20 entries; one statement is the search index reloading the user
+     */
+    @Test
+    void reimportOfAWeek() {
+        JsonImportRequest chart = CHARTS.generate("user1").get(2);
+
+        assertThat(statements(() -> dataImportService.importJsonData(chart, "user1"))).isEqualTo(296);
+    }
+
+    /**
+     * The startup import of the data directory, for a user not yet in the database whose tracks
+     * and artists are. Linear in the chart size like reimportOfAWeek: the user's five weeks of 20
+     * entries, then one of them again, then single entries and artist links.
+     */
+    @Test
+    void fileImport() throws IOException {
+        TestCharts files = new TestCharts(3, 6);
+        String user = "user2";
+        Path dataDir = TestCharts.createDataDirectory();
+        files.writeJson(dataDir, objectMapper);
+        Path weekFile = dataDir.resolve(user).resolve(files.getWeeks(user).get(2) + ".json");
+        JsonNode entry = objectMapper.readTree(weekFile.toFile()).get("entries").get(0);
+
+        assertThat(statements(() -> dataImportService.importUserData(user, dataDir.resolve(user)))).isEqualTo(1193);
+
+        Playlist playlist = playlistRepository.findByUserAndDeletedAtIsNull(userRepository.findByUsername(user).orElseThrow()).get(0);
+        Week week = weekRepository.findByIsoFormat(files.getWeeks(user).get(2)).orElseThrow();
+        Track track = trackRepository.findBySpotifyId(entry.get("track_id").asText()).orElseThrow();
+        entityCacheService.evictAll();
+
+        assertThat(statements(() -> dataImportService.importWeekFile(weekFile, playlist))).isEqualTo(212);
+        entityCacheService.evictAll();
+        assertThat(statements(() -> dataImportService.importChartEntry(entry, playlist, week))).isEqualTo(12);
+        entityCacheService.evictAll();
+
+        String existingName = entry.get("artists").get(0).asText();
+        assertThat(statements(() -> dataImportService.getOrCreateArtist(existingName))).isEqualTo(3);
+        assertThat(statements(() -> dataImportService.getOrCreateArtist("Statement Count"))).isEqualTo(3);
+        Artist existing = dataImportService.getOrCreateArtist(existingName);
+        Artist created = dataImportService.getOrCreateArtist("Statement Count");
+        entityCacheService.evictAll();
+
+        // An existing link is found and left alone, a new one is written with the track's artist names
+        assertThat(statements(() -> dataImportService.linkTrackArtist(track, existing, 0))).isEqualTo(3);
+        assertThat(statements(() -> dataImportService.linkTrackArtist(track, created, 5))).isEqualTo(6);
+    }
+
+    private String firstTrack(String week) {
+        return CHARTS.generate(USER).stream()
+            .filter(chart -> chart.getWeek().equals(week))
+            .findFirst().orElseThrow()
+            .getEntries().get(0).getTrackId();
+    }
+
+    private int statements(Runnable call) {
+        try (SqlStatementCounter.Scope scope = counter.open("test", -1)) {
+            call.run();
+            return scope.getCount();
+        }
+    }
+
+    private static int indexOf(List<Advisor> advisors, Predicate<Advisor> match) {
+        for (int i = 0; i < advisors.size(); i++) {
+            if (match.test(advisors.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.top50.service;
+
+import com.top50.dto.JsonImportRequest;
+import com.top50.dto.TrackDto;
+import com.top50.support.TestCharts;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Type-ahead search over the charts of {@link TestCharts} ("Track n" by "Artist n") and over a few
+ * hand-picked tracks indexed for a user of their own
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TrackSearchIndexTest {
+    private static final TestCharts CHARTS = new TestCharts(2, 6);
+    private static final String SEARCHER = "searcher";
+
+    @Autowired
+    private TrackSearchIndex trackSearchIndex;
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @BeforeAll
+    void seed() {
+        CHARTS.importInto(dataImportService);
+        trackSearchIndex.index(SEARCHER, List.of(
+            entry("Blinding Lights", "The Weeknd"),
+            entry("Save Your Tears", "The Weeknd"),
+            entry("Blank Space", "Taylor Swift"),
+            entry("Lights", "Ellie Goulding"),
+            entry("Lights Out", "Royal Blood"),
+            entry("Electric Feel", "Lights Band")));
+    }
+
+    @Test
+    void everyQueryWordMustPrefixAWordOfTheTrack() {
+        assertThat(titles("bli", SEARCHER)).containsExactly("Blinding Lights");
+        assertThat(titles("weekn", SEARCHER)).containsExactlyInAnyOrder("Blinding Lights", "Save Your Tears");
+        assertThat(titles("bl weeknd", SEARCHER)).containsExactly("Blinding Lights");
+        assertThat(titles("blank weeknd", SEARCHER)).isEmpty();
+    }
+
+    @Test
+    void singleCharactersAloneMatchNothing() {
+        assertThat(titles("b", SEARCHER)).isEmpty();
+        assertThat(titles("b l", null)).isEmpty();
+        // Next to an indexed word a single character still has to match
+        assertThat(titles("s y tears", SEARCHER)).containsExactly("Save Your Tears");
+        assertThat(titles("x tears", SEARCHER)).isEmpty();
+    }
+
+    @Test
+    void exactTitlesRankFirstThenTitlePrefixesThenTitleWordsThenArtists() {
+        assertThat(titles("lights", SEARCHER))
+            .containsExactly("Lights", "Lights Out", "Blinding Lights", "Electric Feel");
+    }
+
+    @Test
+    void resultsCanBeRestrictedToOneUsersCharts() {
+        assertThat(titles("weeknd", null)).hasSize(2);
+        assertThat(titles("weeknd", "user0")).isEmpty();
+        assertThat(titles("weeknd", "nobody")).isEmpty();
+        assertThat(titles("track", "user0")).isNotEmpty().allMatch(title -> title.startsWith("Track "));
+    }
+
+    @Test
+    void deletedChartsLeaveTheResultsAndRestoredOnesReturn() {
+        String onlyUser1 = "Track " + trackChartedOnlyBy("user1", "user0");
+
+        dataImportService.deleteChartEntriesForPlaylist("user1");
+        assertThat(titles("track", "user1")).isEmpty();
+        assertThat(titles("track", "user0")).isNotEmpty();
+        assertThat(titles(onlyUser1, null)).doesNotContain(onlyUser1);
+
+        dataImportService.restoreChartEntriesForPlaylist("user1");
+        assertThat(titles(onlyUser1, "user1")).contains(onlyUser1);
+        assertThat(titles(onlyUser1, null)).contains(onlyUser1);
+    }
+
+    private List<String> titles(String query, String username) {
+        return trackSearchIndex.search(query, username, 20).stream().map(TrackDto::getTitle).toList();
+    }
+
+    private static int trackChartedOnlyBy(String user, String other) {
+        Set<String> otherTracks = new HashSet<>();
+        CHARTS.generate(other).forEach(chart -> chart.getEntries().forEach(entry -> otherTracks.add(entry.getTitle())));
+        return CHARTS.generate(user).stream()
+            .flatMap(chart -> chart.getEntries().stream())
+            .map(JsonImportRequest.ChartEntry::getTitle)
+            .filter(title -> !otherTracks.contains(title))
+            .map(title -> Integer.parseInt(title.substring("Track ".length())))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError(user + " charts no track of its own"));
+    }
+
+    private static JsonImportRequest.ChartEntry entry(String title, String artist) {
+        JsonImportRequest.ChartEntry entry = new JsonImportRequest.ChartEntry();
+        entry.setTrackId(TestCharts.trackId(title.hashCode()));
+        entry.setTitle(title);
+        entry.setArtists(List.of(artist));
+        return entry;
+    }
+}
@@ -0,0 +1,80 @@
+package com.top50.service;
+
+import com.top50.entity.Week;
+import com.top50.repository.WeekRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two WeekService instances on one database, as two application instances would be: weeks one of
+ * them creates must reach the other's calendar
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WeekServiceTest {
+
+    @Autowired
+    private WeekRepository weekRepository;
+
+    @Test
+    void unknownWeekReloadsTheCalendar() {
+        WeekService importer = calendar(Duration.ZERO, Duration.ofHours(1));
+        WeekService reader = calendar(Duration.ZERO, Duration.ofHours(1));
+        reader.getAllIsoFormats();
+
+        importer.getOrCreateWeek("2023-W11");
+        Week week = importer.getOrCreateWeek("2023-W12");
+
+        assertThat(reader.findByIsoFormat("2023-W12")).map(Week::getId).contains(week.getId());
+        assertThat(reader.getWeeksBefore(week)).extracting(Week::getIsoFormat).startsWith("2023-W11");
+    }
+
+    @Test
+    void missesAreAnsweredFromMemoryWithinTheMissTtl() {
+        WeekService importer = calendar(Duration.ZERO, Duration.ofHours(1));
+        WeekService reader = calendar(Duration.ofHours(1), Duration.ofHours(1));
+        reader.getAllIsoFormats();
+
+        importer.getOrCreateWeek("2023-W20");
+
+        assertThat(reader.findByIsoFormat("2023-W20")).isEmpty();
+        ReflectionTestUtils.setField(reader, "missTtl", Duration.ZERO);
+        assertThat(reader.findByIsoFormat("2023-W20")).isPresent();
+    }
+
+    @Test
+    void earlierWeekAppearsOnceTheCalendarIsOld() {
+        WeekService importer = calendar(Duration.ZERO, Duration.ofHours(1));
+        WeekService reader = calendar(Duration.ZERO, Duration.ofHours(1));
+        Week current = importer.getOrCreateWeek("2023-W32");
+        reader.getAllIsoFormats();
+
+        importer.getOrCreateWeek("2023-W31");
+        assertThat(reader.getWeeksBefore(current)).extracting(Week::getIsoFormat).doesNotContain("2023-W31");
+
+        ReflectionTestUtils.setField(reader, "maxAge", Duration.ZERO);
+        assertThat(reader.getWeeksBefore(current)).extracting(Week::getIsoFormat).startsWith("2023-W31");
+    }
+
+    @Test
+    void week53OnlyInYearsThatHaveIt() {
+        assertThat(WeekService.startDate("2020-W53")).isEqualTo("2020-12-28");
+        assertThatThrownBy(() -> WeekService.startDate("2021-W53")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(calendar(Duration.ZERO, Duration.ofHours(1)).findByIsoFormat("2021-W53")).isEmpty();
+    }
+
+    private WeekService calendar(Duration missTtl, Duration maxAge) {
+        WeekService weekService = new WeekService(weekRepository);
+        ReflectionTestUtils.setField(weekService, "missTtl", missTtl);
+        ReflectionTestUtils.setField(weekService, "maxAge", maxAge);
+        return weekService;
+    }
+}
@@ -0,0 +1,140 @@
+package com.top50.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.top50.dto.JsonImportRequest;
+import com.top50.service.DataImportService;
+import com.top50.util.SpotifyIds;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Small deterministic chart data for tests: a few users with weekly charts drawn from a shared
+ * catalog. Each user skips one week (a different one per user), so "previous week" has to skip
+ * weeks that only other users charted.
+ */
+public class TestCharts {
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private final int users;
+    private final int weeks;
+    private final int chartSize;
+    private final int catalogSize;
+
+    public TestCharts(int users, int weeks) {
+        this(users, weeks, 20, 60);
+    }
+
+    public TestCharts(int users, int weeks, int chartSize, int catalogSize) {
+        this.users = users;
+        this.weeks = weeks;
+        this.chartSize = chartSize;
+        this.catalogSize = catalogSize;
+    }
+
+    public List<String> getUsers() {
+        List<String> names = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            names.add("user" + i);
+        }
+        return names;
+    }
+
+    /**
+     * Weeks charted by a user in ascending order
+     */
+    public List<String> getWeeks(String user) {
+        int skipped = 2 + getUsers().indexOf(user);
+        List<String> result = new ArrayList<>(weeks);
+        for (int week = 1; week <= weeks; week++) {
+            if (week != skipped) {
+                result.add(String.format("2024-W%02d", week));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A user's charts, one import request per week in ascending order
+     */
+    public List<JsonImportRequest> generate(String user) {
+        Random random = new Random(user.hashCode());
+        List<JsonImportRequest> charts = new ArrayList<>();
+        for (String week : getWeeks(user)) {
+            List<Integer> catalog = new ArrayList<>();
+            for (int track = 0; track < catalogSize; track++) {
+                catalog.add(track);
+            }
+            Collections.shuffle(catalog, random);
+
+            List<JsonImportRequest.ChartEntry> entries = new ArrayList<>(chartSize);
+            for (int i = 0; i < chartSize; i++) {
+                entries.add(entry(i + 1, catalog.get(i)));
+            }
+            JsonImportRequest request = new JsonImportRequest();
+            request.setWeek(week);
+            request.setEntries(entries);
+            charts.add(request);
+        }
+        return charts;
+    }
+
+    /**
+     * Import every user's charts through DataImportService
+     */
+    public void importInto(DataImportService dataImportService) {
+        for (String user : getUsers()) {
+            for (JsonImportRequest chart : generate(user)) {
+                dataImportService.importJsonData(chart, user);
+            }
+        }
+    }
+
+    /**
+     * Write every user's charts as {@code <dataDir>/<user>/<week>.json}, the layout read by JsonChartService
+     */
+    public void writeJson(Path dataDir, ObjectMapper objectMapper) throws IOException {
+        for (String user : getUsers()) {
+            Path userDir = Files.createDirectories(dataDir.resolve(user));
+            for (JsonImportRequest chart : generate(user)) {
+                objectMapper.writeValue(userDir.resolve(chart.getWeek() + ".json").toFile(), chart);
+            }
+        }
+    }
+
+    public static Path createDataDirectory() {
+        try {
+            return Files.createTempDirectory("top50-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String trackId(int track) {
+        char[] id = new char[SpotifyIds.LENGTH];
+        Arrays.fill(id, '0');
+        long value = Integer.toUnsignedLong(track) * 2654435761L;
+        for (int i = SpotifyIds.LENGTH - 1; i >= 0 && value > 0; i--) {
+            id[i] = BASE62.charAt((int) (value % 62));
+            value /= 62;
+        }
+        id[0] = 'T';
+        return new String(id);
+    }
+
+    private static JsonImportRequest.ChartEntry entry(int placement, int track) {
+        JsonImportRequest.ChartEntry entry = new JsonImportRequest.ChartEntry();
+        entry.setPlacement(placement);
+        entry.setTrackId(trackId(track));
+        entry.setTitle("Track " + track);
+        entry.setArtists(track % 3 == 0
+            ? List.of("Artist " + track % 7, "Artist " + (track % 7 + 1))
+            : List.of("Artist " + track % 7));
+        entry.setSpotifyUrl(SpotifyIds.toTrackUrl(entry.getTrackId()));
+        entry.setImageUrl("https://i.scdn.co/image/" + entry.getTrackId());
+        return entry;
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react'
+import React, { useState, useEffect, useRef } from 'react'
 import axios from 'axios'
 import { LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, Legend, ResponsiveContainer } from 'recharts'
 import './UserChartView.css'
@@ -23,6 +23,8 @@ function UserChartView({ user, onWeekChange, onTracksLoaded }) {
   const [deleting, setDeleting] = useState(false)
   const [showDeleteConfirm, setShowDeleteConfirm] = useState(false)
   const [deleteSuccess, setDeleteSuccess] = useState(false)
+  const selectedWeekRef = useRef(selectedWeek)
+  selectedWeekRef.current = selectedWeek
 
   useEffect(() => {
     loadWeeks()
@@ -40,13 +42,28 @@ function UserChartView({ user, onWeekChange, onTracksLoaded }) {
     }
   }, [selectedWeek])
 
+  // Changes pushed by the backend (imports and deletes, also from other clients) instead of polling
+  useEffect(() => {
+    const events = new EventSource(`${API_BASE_URL}/events/${user}`)
+    events.addEventListener('chart', (event) => {
+      const update = JSON.parse(event.data)
+      loadWeeks()
+      if (update.week && update.week === selectedWeekRef.current && update.entries > 0) {
+        loadTracksForWeek(update.week)
+      }
+    })
+    return () => events.close()
+  }, [user])
+
   const loadWeeks = async () => {
     try {
       setLoading(true)
       const response = await axios.get(`${API_BASE_URL}/weeks/${user}`)
       const weekList = response.data.sort().reverse() // Most recent first
       setWeeks(weekList)
-      if (weekList.length > 0 && !selectedWeek) {
+      // Read through the ref: the chart event handler holds the loadWeeks of its first render
+      const currentWeek = selectedWeekRef.current
+      if (weekList.length > 0 && !weekList.includes(currentWeek)) {
         const firstWeek = weekList[0]
         setSelectedWeek(firstWeek) // Select most recent week
         if (onWeekChange) {
@@ -0,0 +1,32 @@
+#!/bin/bash
+# Measures time-to-first-request: starts the backend with the given command and polls a URL until it answers
+# Usage: ./measure-startup.sh [-u url] <command...>
+# Example: ./measure-startup.sh docker run --rm -p 8080:8080 --env-file backend.env top50-backend
+
+URL="http://localhost:8080/api/health"
+if [ "$1" = "-u" ]; then
+    URL=$2
+    shift 2
+fi
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 [-u url] <command...>"
+    exit 1
+fi
+
+START=$(date +%s%N)
+"$@" > startup.log 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null' EXIT
+
+until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 $PID 2>/dev/null; then
+        echo "Backend exited before answering, see startup.log"
+        exit 1
+    fi
+    sleep 0.05
+done
+
+END=$(date +%s%N)
+echo "First successful request to $URL after $(( (END - START) / 1000000 )) ms"
+grep "Startup:" startup.log